@@ -1,6 +1,7 @@
 package gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.Scene;
@@ -10,20 +11,31 @@ import javafx.stage.Stage;
 import gui.views.*;
 import model.*;
 import verwaltung.*;
+import util.Database;
 import java.time.LocalDate;
 
 public class KlausurverwaltungGUI extends Application {
     private ErweiterteStudentenVerwaltung studentenVerwaltung;
     private KlausurVerwaltung klausurVerwaltung;
+    private Wartungsdienst wartungsdienst;
     private BorderPane root;
     private Label statusLabel;
     
     @Override
     public void init() {
+        // Schreibzugriffe nicht auf dem JavaFX-Thread committen
+        Database.aktiviereWriteBehind();
+        
         // Initialisiere Verwaltungen
         studentenVerwaltung = new ErweiterteStudentenVerwaltung();
         klausurVerwaltung = new KlausurVerwaltung();
+        studentenVerwaltung.ladeAbhaengigeDaten(klausurVerwaltung);
         ladeBeisspieldaten();
+        
+        // Erinnerungen, Statistik-Vorberechnung und DB-Wartung im Hintergrund
+        // Fristerinnerungen lesen die Verwaltungsdaten und laufen daher auf dem JavaFX-Thread
+        wartungsdienst = new Wartungsdienst(studentenVerwaltung, klausurVerwaltung, Platform::runLater);
+        wartungsdienst.starten();
     }
     
     @Override
@@ -42,8 +54,19 @@ public class KlausurverwaltungGUI extends Application {
         primaryStage.show();
         
         updateStatus("Willkommen im Klausurverwaltungssystem!");
+        
+        // Im Hintergrund neu berechnete Semesterberichte in einer offenen Statistikansicht zeigen
+        wartungsdienst.addBerichtListener(bericht -> Platform.runLater(this::refreshStatistikenWennOffen));
     }
-    
+
+    @Override
+    public void stop() {
+        wartungsdienst.beenden();
+        // Wartende Benachrichtigungen zustellen, dann ausstehende Schreibzugriffe committen und Verbindungen freigeben
+        studentenVerwaltung.schliessen();
+        Database.schliessen();
+    }
+
     private MenuBar createMenuBar() {
         MenuBar menuBar = new MenuBar();
         
@@ -113,9 +136,9 @@ public class KlausurverwaltungGUI extends Application {
         stats.setAlignment(javafx.geometry.Pos.CENTER);
         stats.setPadding(new Insets(30, 0, 0, 0));
         
-        int studentenAnzahl = studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME).size();
-        int klausurenAnzahl = klausurVerwaltung.getAlleSortiert().size();
-        int kommendeKlausuren = klausurVerwaltung.getKommendeKlausuren().size();
+        int studentenAnzahl = studentenVerwaltung.getAnzahl();
+        int klausurenAnzahl = klausurVerwaltung.getAnzahl();
+        int kommendeKlausuren = klausurVerwaltung.zaehleKommende();
         
         Label statsLabel = new Label(String.format(
             "Aktuell: %d Studenten | %d Klausuren | %d kommende Prüfungen",
@@ -183,7 +206,7 @@ public class KlausurverwaltungGUI extends Application {
     }
     
     private void showStatistiken() {
-        StatistikView view = new StatistikView(studentenVerwaltung, klausurVerwaltung);
+        StatistikView view = new StatistikView(studentenVerwaltung, klausurVerwaltung, wartungsdienst);
         root.setCenter(view);
         updateStatus("Statistiken geöffnet");
     }
@@ -235,18 +258,24 @@ public class KlausurverwaltungGUI extends Application {
             studentenVerwaltung.hinzufuegen(new Student("10005", "Sarah", "Meyer", 
                 "Physik", LocalDate.of(2000, 7, 18)));
             
-            // Beispiel-Klausuren
-            klausurVerwaltung.hinzufuegen(new Klausur("OOP2025", "Objektorientierte Programmierung", 
-                "Informatik Grundlagen", java.time.LocalDateTime.of(2025, 7, 15, 10, 0), 
-                "H1", 3, LocalDate.of(2025, 7, 1)));
+            // Beispiel-Klausuren (nur falls noch nicht aus der Datenbank geladen)
+            if (klausurVerwaltung.findeNachId("OOP2025") == null) {
+                klausurVerwaltung.hinzufuegen(new Klausur("OOP2025", "Objektorientierte Programmierung", 
+                    "Informatik Grundlagen", java.time.LocalDateTime.of(2025, 7, 15, 10, 0), 
+                    "H1", 3, LocalDate.of(2025, 7, 1)));
+            }
             
-            klausurVerwaltung.hinzufuegen(new Klausur("MATH1", "Mathematik I", 
-                "Grundlagen", java.time.LocalDateTime.of(2025, 7, 20, 14, 0), 
-                "A101", 3, LocalDate.of(2025, 7, 5)));
+            if (klausurVerwaltung.findeNachId("MATH1") == null) {
+                klausurVerwaltung.hinzufuegen(new Klausur("MATH1", "Mathematik I", 
+                    "Grundlagen", java.time.LocalDateTime.of(2025, 7, 20, 14, 0), 
+                    "A101", 3, LocalDate.of(2025, 7, 5)));
+            }
             
-            klausurVerwaltung.hinzufuegen(new Klausur("BWL1", "Grundlagen BWL", 
-                "Betriebswirtschaft", java.time.LocalDateTime.of(2025, 7, 18, 9, 0), 
-                "B205", 3, LocalDate.of(2025, 7, 3)));
+            if (klausurVerwaltung.findeNachId("BWL1") == null) {
+                klausurVerwaltung.hinzufuegen(new Klausur("BWL1", "Grundlagen BWL", 
+                    "Betriebswirtschaft", java.time.LocalDateTime.of(2025, 7, 18, 9, 0), 
+                    "B205", 3, LocalDate.of(2025, 7, 3)));
+            }
             
         } catch (Exception e) {
             // Daten existieren bereits
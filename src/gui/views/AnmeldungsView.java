@@ -112,9 +112,7 @@ public class AnmeldungsView extends BorderPane {
                 } else {
                     Student selected = studentComboBox.getValue();
                     if (selected != null) {
-                        List<Versuch> versuche = selected.getVersuche().stream()
-                            .filter(v -> v.getKlausur().equals(item))
-                            .toList();
+                        List<Versuch> versuche = selected.getVersucheFuerKlausur(item);
                         
                         String status = versuche.isEmpty() ? "Angemeldet" : 
                             versuche.stream().anyMatch(v -> v.istBestanden()) ? "BESTANDEN" : "Nicht bestanden";
@@ -207,7 +205,7 @@ public class AnmeldungsView extends BorderPane {
         List<Klausur> alleKlausuren = klausurVerwaltung.getKommendeKlausuren();
         ObservableList<Klausur> verfuegbar = FXCollections.observableArrayList(
             alleKlausuren.stream()
-                .filter(k -> !angemeldet.contains(k))
+                .filter(k -> !selected.istAngemeldetZu(k))
                 .toList()
         );
         verfuegbareKlausurenList.setItems(verfuegbar);
@@ -251,8 +249,7 @@ public class AnmeldungsView extends BorderPane {
         }
         
         // Prüfe ob bereits Versuche existieren
-        boolean hatVersuche = student.getVersuche().stream()
-            .anyMatch(v -> v.getKlausur().equals(klausur));
+        boolean hatVersuche = student.getAnzahlVersuche(klausur) > 0;
         
         if (hatVersuche) {
             showError("Abmeldung nicht möglich", 
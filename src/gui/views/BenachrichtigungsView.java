@@ -7,8 +7,8 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import model.*;
 import verwaltung.*;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 public class BenachrichtigungsView extends BorderPane {
     private ErweiterteStudentenVerwaltung studentenVerwaltung;
@@ -205,6 +205,8 @@ public class BenachrichtigungsView extends BorderPane {
         BenachrichtigungsVerwaltung verwaltung = studentenVerwaltung.getBenachrichtigungsVerwaltung();
         
         Student selectedStudent = studentComboBox.getValue();
+        int gesamt;
+        int ungelesen;
         
         if (selectedStudent != null) {
             // Benachrichtigungen für einen bestimmten Studenten
@@ -213,22 +215,23 @@ public class BenachrichtigungsView extends BorderPane {
             } else {
                 liste.addAll(verwaltung.getBenachrichtigungenFuerStudent(selectedStudent));
             }
+            gesamt = verwaltung.getAnzahl(selectedStudent);
+            ungelesen = verwaltung.getAnzahlUngelesene(selectedStudent);
         } else {
-            // Alle Benachrichtigungen
-            for (Student student : studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME)) {
-                if (nurUngeleseneCheckBox.isSelected()) {
-                    liste.addAll(verwaltung.getUngelesene(student));
-                } else {
-                    liste.addAll(verwaltung.getBenachrichtigungenFuerStudent(student));
-                }
+            // Alle Benachrichtigungen, neueste zuerst
+            if (nurUngeleseneCheckBox.isSelected()) {
+                liste.addAll(verwaltung.getAlleUngelesenen());
+            } else {
+                liste.addAll(verwaltung.getAlleBenachrichtigungen());
             }
+            gesamt = verwaltung.getAnzahl();
+            ungelesen = verwaltung.getAnzahlUngelesene();
         }
         
         benachrichtigungsListe.setItems(liste);
         
         // Statistik aktualisieren
-        int ungelesen = (int) liste.stream().filter(b -> !b.istGelesen()).count();
-        statistikLabel.setText(String.format("Gesamt: %d | Ungelesen: %d", liste.size(), ungelesen));
+        statistikLabel.setText(String.format("Gesamt: %d | Ungelesen: %d", gesamt, ungelesen));
         
         detailArea.clear();
     }
@@ -263,14 +266,13 @@ public class BenachrichtigungsView extends BorderPane {
         
         alert.showAndWait().ifPresent(result -> {
             if (result == ButtonType.OK) {
-                List<Klausur> klausuren = klausurVerwaltung.getKommendeKlausuren();
-                studentenVerwaltung.erstelleAutomatischeErinnerungen(klausuren);
+                int erstellt = studentenVerwaltung.erstelleFristerinnerungen(klausurVerwaltung, LocalDate.now());
                 aktualisiereBenachrichtigungen();
                 
                 Alert info = new Alert(Alert.AlertType.INFORMATION);
                 info.setTitle("Erinnerungen erstellt");
                 info.setHeaderText(null);
-                info.setContentText("Automatische Erinnerungen wurden erfolgreich erstellt.");
+                info.setContentText(erstellt + " Erinnerungen für Klausuren mit Anmeldefrist in 7 Tagen bzw. morgen erstellt.");
                 info.showAndWait();
             }
         });
@@ -304,9 +306,7 @@ public class BenachrichtigungsView extends BorderPane {
                 if (selectedStudent != null) {
                     verwaltung.alleAlsGelesenMarkieren(selectedStudent);
                 } else {
-                    for (Student student : studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME)) {
-                        verwaltung.alleAlsGelesenMarkieren(student);
-                    }
+                    verwaltung.alleAlsGelesenMarkieren();
                 }
                 
                 aktualisiereBenachrichtigungen();
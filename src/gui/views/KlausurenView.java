@@ -12,6 +12,8 @@ import verwaltung.KlausurVerwaltung;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 public class KlausurenView extends BorderPane {
@@ -173,11 +175,9 @@ public class KlausurenView extends BorderPane {
     }
     
     private void aktualisiereInfo(Label gesamt, Label kommende, Label woche) {
-        int gesamtAnzahl = verwaltung.getAlleSortiert().size();
-        int kommendeAnzahl = verwaltung.getKommendeKlausuren().size();
-        int wocheAnzahl = (int) verwaltung.getKommendeKlausuren().stream()
-            .filter(k -> k.getDatum().isBefore(LocalDateTime.now().plusWeeks(1)))
-            .count();
+        int gesamtAnzahl = verwaltung.getAnzahl();
+        int kommendeAnzahl = verwaltung.zaehleKommende();
+        int wocheAnzahl = verwaltung.zaehleDieseWoche();
         
         gesamt.setText(String.valueOf(gesamtAnzahl));
         kommende.setText(String.valueOf(kommendeAnzahl));
@@ -215,6 +215,8 @@ public class KlausurenView extends BorderPane {
         
         DatePicker fristPicker = new DatePicker(klausur != null ? klausur.getAnmeldefrist() : LocalDate.now().plusWeeks(2));
         Spinner<Integer> versucheSpinner = new Spinner<>(1, 5, klausur != null ? klausur.getMaxVersuche() : 3);
+        TextField studiengaengeField = new TextField(klausur != null ? String.join("; ", klausur.getStudiengaenge()) : "");
+        studiengaengeField.setPromptText("leer = alle, z.B. Informatik; BWL");
         
         grid.add(new Label("ID:"), 0, 0);
         grid.add(idField, 1, 0);
@@ -232,6 +234,8 @@ public class KlausurenView extends BorderPane {
         grid.add(fristPicker, 1, 6);
         grid.add(new Label("Max. Versuche:"), 0, 7);
         grid.add(versucheSpinner, 1, 7);
+        grid.add(new Label("Studiengänge:"), 0, 8);
+        grid.add(studiengaengeField, 1, 8);
         
         dialog.getDialogPane().setContent(grid);
         
@@ -246,8 +250,10 @@ public class KlausurenView extends BorderPane {
                         minuteSpinner.getValue()
                     );
                     
+                    // Fristerinnerungen gehen nur an diese Studiengänge
+                    List<String> studiengaenge = Arrays.asList(studiengaengeField.getText().split("[;,]"));
                     if (klausur == null) {
-                        return new Klausur(
+                        Klausur neu = new Klausur(
                             idField.getText().trim(),
                             titelField.getText().trim(),
                             modulField.getText().trim(),
@@ -256,10 +262,13 @@ public class KlausurenView extends BorderPane {
                             versucheSpinner.getValue(),
                             fristPicker.getValue()
                         );
+                        neu.setStudiengaenge(studiengaenge);
+                        return neu;
                     } else {
                         klausur.setDatum(dateTime);
                         klausur.setRaum(raumField.getText().trim());
                         klausur.setAnmeldefrist(fristPicker.getValue());
+                        klausur.setStudiengaenge(studiengaenge);
                         return klausur;
                     }
                 } catch (Exception e) {
@@ -313,11 +322,15 @@ public class KlausurenView extends BorderPane {
         alert.setHeaderText("Angemeldete Studenten für: " + selected.getTitel());
         
         StringBuilder content = new StringBuilder();
-        var teilnehmer = selected.getTeilnehmendeStudenten();
+        var teilnehmer = selected.getTeilnehmer();
         if (teilnehmer.isEmpty()) {
             content.append("Keine Studenten angemeldet.");
         } else {
-            content.append("Anzahl: ").append(teilnehmer.size()).append("\n\n");
+            content.append("Anzahl: ").append(teilnehmer.size());
+            if (selected.getEffektiveKapazitaet() > 0) {
+                content.append(" / ").append(selected.getEffektiveKapazitaet()).append(" Plätze");
+            }
+            content.append("\n\n");
             teilnehmer.forEach(s -> content.append("• ").append(s).append("\n"));
         }
         
@@ -9,6 +9,7 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import model.*;
 import verwaltung.*;
+import util.QuantilSketch;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,15 +17,26 @@ public class StatistikView extends BorderPane {
     private ErweiterteStudentenVerwaltung studentenVerwaltung;
     private KlausurVerwaltung klausurVerwaltung;
     private TabPane tabPane;
+    // Einmal je Aufbau berechnet; Studiengang- und Leistungs-Tab lesen daraus
+    private SemesterBericht bericht;
+    // Liefert den im Hintergrund vorberechneten Bericht (null: selbst berechnen)
+    private Wartungsdienst wartungsdienst;
     
     public StatistikView(ErweiterteStudentenVerwaltung studentenVerwaltung, KlausurVerwaltung klausurVerwaltung) {
+        this(studentenVerwaltung, klausurVerwaltung, null);
+    }
+    
+    public StatistikView(ErweiterteStudentenVerwaltung studentenVerwaltung, KlausurVerwaltung klausurVerwaltung,
+                         Wartungsdienst wartungsdienst) {
         this.studentenVerwaltung = studentenVerwaltung;
         this.klausurVerwaltung = klausurVerwaltung;
+        this.wartungsdienst = wartungsdienst;
         
         Label titleLabel = new Label("Statistiken und Auswertungen");
         titleLabel.setStyle("-fx-font-size: 20px; -fx-font-weight: bold; -fx-padding: 10;");
         setTop(titleLabel);
         
+        bericht = ladeBericht();
         tabPane = new TabPane();
         tabPane.getTabs().addAll(
             createUebersichtTab(),
@@ -41,6 +53,9 @@ public class StatistikView extends BorderPane {
      * Aktualisiert alle Statistik-Tabs nach Datenänderungen
      */
     public void refresh() {
+        bericht = ladeBericht();
+        // Auch bei Aktualisierungen aus dem Hintergrund den geöffneten Tab beibehalten
+        int ausgewaehlt = tabPane.getSelectionModel().getSelectedIndex();
         tabPane.getTabs().setAll(
             createUebersichtTab(),
             createNotenverteilungTab(),
@@ -48,6 +63,17 @@ public class StatistikView extends BorderPane {
             createKlausurstatistikTab(),
             createLeistungsTab()
         );
+        tabPane.getSelectionModel().select(Math.max(0, ausgewaehlt));
+    }
+    
+    private SemesterBericht ladeBericht() {
+        // Ein veralteter Bericht wird ersetzt, sobald der Wartungsdienst den neuen meldet
+        SemesterBericht vorberechnet = wartungsdienst != null ? wartungsdienst.getSemesterBericht() : null;
+        if (vorberechnet != null) {
+            return vorberechnet;
+        }
+        // Nur bis der Wartungsdienst den ersten Bericht fertig hat
+        return SemesterBericht.erstellen(studentenVerwaltung);
     }
     
     private Tab createUebersichtTab() {
@@ -61,19 +87,19 @@ public class StatistikView extends BorderPane {
         
         // Statistik-Boxen
         VBox studentenBox = createStatBox("Studenten", 
-            String.valueOf(studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME).size()),
+            String.valueOf(studentenVerwaltung.getAnzahl()),
             "Gesamt eingeschrieben");
         
         VBox klausurenBox = createStatBox("Klausuren",
-            String.valueOf(klausurVerwaltung.getAlleSortiert().size()),
+            String.valueOf(klausurVerwaltung.getAnzahl()),
             "Im System");
         
         VBox kommendeBox = createStatBox("Anstehend",
-            String.valueOf(klausurVerwaltung.getKommendeKlausuren().size()),
+            String.valueOf(klausurVerwaltung.zaehleKommende()),
             "Kommende Klausuren");
         
         // Berechne Durchschnittsnote
-        double avgNote = studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME).stream()
+        double avgNote = studentenVerwaltung.getSortierteAnsicht(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME).stream()
             .mapToDouble(Student::berechneNotendurchschnitt)
             .filter(note -> note > 0)
             .average()
@@ -99,7 +125,7 @@ public class StatistikView extends BorderPane {
         ObservableList<String> items = FXCollections.observableArrayList();
         
         // Studiengänge mit Anzahl
-        Map<String, Long> studiengangCount = studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.STUDIENGANG)
+        Map<String, Long> studiengangCount = studentenVerwaltung.getSortierteAnsicht(ErweiterteStudentenVerwaltung.SortierKriterium.STUDIENGANG)
             .stream()
             .collect(Collectors.groupingBy(Student::getStudiengang, Collectors.counting()));
         
@@ -110,8 +136,7 @@ public class StatistikView extends BorderPane {
         
         items.add("");
         items.add("=== Klausuren diese Woche ===");
-        klausurVerwaltung.getKommendeKlausuren().stream()
-            .filter(k -> k.getDatum().isBefore(java.time.LocalDateTime.now().plusWeeks(1)))
+        klausurVerwaltung.getKlausurenDieseWoche()
             .forEach(k -> items.add(k.getTitel() + " - " + k.getDatum().format(java.time.format.DateTimeFormatter.ofPattern("dd.MM. HH:mm"))));
         
         quickList.setItems(items);
@@ -156,7 +181,7 @@ public class StatistikView extends BorderPane {
         notenVerteilung.put("> 4.0", 0);
         notenVerteilung.put("Keine Note", 0);
         
-        for (Student student : studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME)) {
+        for (Student student : studentenVerwaltung.getSortierteAnsicht(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME)) {
             double durchschnitt = student.berechneNotendurchschnitt();
             if (durchschnitt == 0) {
                 notenVerteilung.merge("Keine Note", 1, Integer::sum);
@@ -194,30 +219,38 @@ public class StatistikView extends BorderPane {
         StringBuilder stats = new StringBuilder();
         stats.append("=== DETAILLIERTE NOTENSTATISTIK ===\n\n");
         
-        List<Student> mitNoten = studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME)
-            .stream()
-            .filter(s -> s.berechneNotendurchschnitt() > 0)
-            .sorted(Comparator.comparing(Student::berechneNotendurchschnitt))
-            .collect(Collectors.toList());
+        // Ein Durchlauf: Beste/Schlechteste direkt, Quantile über einen Sketch statt Sortierung
+        Student bester = null;
+        Student schlechtester = null;
+        QuantilSketch durchschnitte = new QuantilSketch();
+        for (Student s : studentenVerwaltung.getSortierteAnsicht(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME)) {
+            double durchschnitt = s.berechneNotendurchschnitt();
+            if (durchschnitt <= 0) {
+                continue;
+            }
+            durchschnitte.hinzufuegen(durchschnitt);
+            if (bester == null || durchschnitt < bester.berechneNotendurchschnitt()) {
+                bester = s;
+            }
+            if (schlechtester == null || durchschnitt > schlechtester.berechneNotendurchschnitt()) {
+                schlechtester = s;
+            }
+        }
         
-        if (!mitNoten.isEmpty()) {
+        if (bester != null) {
             stats.append(String.format("Beste Note: %.2f (%s)\n", 
-                mitNoten.get(0).berechneNotendurchschnitt(),
-                mitNoten.get(0).getNachname() + ", " + mitNoten.get(0).getVorname()));
+                bester.berechneNotendurchschnitt(),
+                bester.getNachname() + ", " + bester.getVorname()));
             
             stats.append(String.format("Schlechteste Note: %.2f (%s)\n",
-                mitNoten.get(mitNoten.size()-1).berechneNotendurchschnitt(),
-                mitNoten.get(mitNoten.size()-1).getNachname() + ", " + mitNoten.get(mitNoten.size()-1).getVorname()));
-            
-            double median = mitNoten.size() % 2 == 0 ?
-                (mitNoten.get(mitNoten.size()/2-1).berechneNotendurchschnitt() + 
-                 mitNoten.get(mitNoten.size()/2).berechneNotendurchschnitt()) / 2 :
-                mitNoten.get(mitNoten.size()/2).berechneNotendurchschnitt();
+                schlechtester.berechneNotendurchschnitt(),
+                schlechtester.getNachname() + ", " + schlechtester.getVorname()));
             
-            stats.append(String.format("Median: %.2f\n", median));
+            stats.append(String.format("Median: %.2f (P10: %.2f | P90: %.2f)\n",
+                durchschnitte.getMedian(), durchschnitte.quantil(0.1), durchschnitte.quantil(0.9)));
             stats.append(String.format("Studenten mit Noten: %d von %d\n", 
-                mitNoten.size(), 
-                studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME).size()));
+                durchschnitte.getAnzahl(), 
+                studentenVerwaltung.getAnzahl()));
         }
         
         statsText.setText(stats.toString());
@@ -242,7 +275,7 @@ public class StatistikView extends BorderPane {
         PieChart pieChart = new PieChart();
         pieChart.setTitle("Verteilung nach Studiengängen");
         
-        Map<String, Long> studiengangCount = studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.STUDIENGANG)
+        Map<String, Long> studiengangCount = studentenVerwaltung.getSortierteAnsicht(ErweiterteStudentenVerwaltung.SortierKriterium.STUDIENGANG)
             .stream()
             .collect(Collectors.groupingBy(Student::getStudiengang, Collectors.counting()));
         
@@ -285,29 +318,30 @@ public class StatistikView extends BorderPane {
         mitNotenCol.setCellValueFactory(data -> new javafx.beans.property.SimpleIntegerProperty(data.getValue().mitNoten).asObject());
         mitNotenCol.setPrefWidth(100);
         
-        table.getColumns().addAll(studiengangCol, anzahlCol, durchschnittCol, mitNotenCol);
+        TableColumn<StudiengangStatistik, String> quantilCol = new TableColumn<>("Noten Median (P10 / P90)");
+        quantilCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(data.getValue().notenQuantile));
+        quantilCol.setPrefWidth(180);
+        
+        table.getColumns().addAll(studiengangCol, anzahlCol, durchschnittCol, mitNotenCol, quantilCol);
         
         // Daten für Tabelle sammeln
         ObservableList<StudiengangStatistik> tableData = FXCollections.observableArrayList();
         
         studiengangCount.forEach((studiengang, count) -> {
-            List<Student> studiengangStudenten = studentenVerwaltung.suchenNachStudiengang(studiengang);
-            double avgNote = studiengangStudenten.stream()
-                .mapToDouble(Student::berechneNotendurchschnitt)
-                .filter(note -> note > 0)
-                .average()
-                .orElse(0.0);
-            int mitNoten = (int) studiengangStudenten.stream()
-                .filter(s -> s.berechneNotendurchschnitt() > 0)
-                .count();
-            
-            tableData.add(new StudiengangStatistik(studiengang, count.intValue(), avgNote, mitNoten));
+            SemesterBericht.StudiengangKennzahlen kennzahlen = bericht.studiengaenge.get(studiengang);
+            if (kennzahlen == null) {
+                tableData.add(new StudiengangStatistik(studiengang, count.intValue(), 0.0, 0, "-"));
+                return;
+            }
+            String notenQuantile = String.format("%.1f (%.1f / %.1f)", kennzahlen.median, kennzahlen.p10, kennzahlen.p90);
+            tableData.add(new StudiengangStatistik(studiengang, count.intValue(), kennzahlen.durchschnittsnote,
+                kennzahlen.studentenMitNoten, notenQuantile));
         });
         
         table.setItems(tableData);
         table.setPrefHeight(200);
         
-        content.getChildren().addAll(pieChart, new Label("Details pro Studiengang:"), table);
+        content.getChildren().addAll(pieChart, new Label("Details pro Studiengang:"), table, createBerichtLabel());
         
         ScrollPane scrollPane = new ScrollPane(content);
         scrollPane.setFitToWidth(true);
@@ -377,10 +411,10 @@ public class StatistikView extends BorderPane {
         besteTab.setClosable(false);
         ListView<String> besteList = new ListView<>();
         
-        List<Student> besteStudenten = studentenVerwaltung.getAlleSortiert(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME)
+        List<Student> besteStudenten = studentenVerwaltung.getSortierteAnsicht(ErweiterteStudentenVerwaltung.SortierKriterium.NACHNAME)
             .stream()
             .filter(s -> s.berechneNotendurchschnitt() > 0 && s.berechneNotendurchschnitt() <= 2.0)
-            .sorted(Comparator.comparing(Student::berechneNotendurchschnitt))
+            .sorted(Comparator.comparingDouble(Student::berechneNotendurchschnitt))
             .limit(10)
             .collect(Collectors.toList());
         
@@ -400,14 +434,12 @@ public class StatistikView extends BorderPane {
         gefaehrdeteTab.setClosable(false);
         ListView<String> gefaehrdeteList = new ListView<>();
         
-        List<Student> gefaehrdeteStudenten = studentenVerwaltung.getStudentenMitSchlechtenLeistungen();
-        
         ObservableList<String> gefaehrdeteItems = FXCollections.observableArrayList();
-        gefaehrdeteStudenten.forEach(s -> 
+        bericht.gefaehrdete.forEach(g -> 
             gefaehrdeteItems.add(String.format("%.2f - %s (%s) - WARNUNG", 
-                s.berechneNotendurchschnitt(), 
-                s.getNachname() + ", " + s.getVorname(),
-                s.getStudiengang()))
+                g.durchschnitt, 
+                g.student.getNachname() + ", " + g.student.getVorname(),
+                g.student.getStudiengang()))
         );
         
         gefaehrdeteList.setItems(gefaehrdeteItems);
@@ -416,12 +448,19 @@ public class StatistikView extends BorderPane {
         
         leistungTabs.getTabs().addAll(besteTab, gefaehrdeteTab);
         
-        content.getChildren().addAll(titleLabel, leistungTabs);
+        content.getChildren().addAll(titleLabel, leistungTabs, createBerichtLabel());
         
         tab.setContent(content);
         return tab;
     }
     
+    private Label createBerichtLabel() {
+        Label label = new Label(String.format("Semesterbericht über %d Versuche in %d ms berechnet (%d Threads)",
+            bericht.anzahlVersuche, bericht.dauerMs, bericht.parallelitaet));
+        label.setStyle("-fx-font-size: 11px; -fx-text-fill: #888;");
+        return label;
+    }
+    
     private VBox createStatBox(String title, String value, String subtitle) {
         VBox box = new VBox(5);
         box.setAlignment(javafx.geometry.Pos.CENTER);
@@ -475,7 +514,12 @@ public class StatistikView extends BorderPane {
         grid.add(avgLabel, 1, 3);
         
         grid.add(new Label("Angemeldete Studenten:"), 0, 4);
-        grid.add(new Label(String.valueOf(klausur.getTeilnehmendeStudenten().size())), 1, 4);
+        grid.add(new Label(String.valueOf(klausur.getTeilnehmerAnzahl())), 1, 4);
+        
+        QuantilSketch noten = studentenVerwaltung.getVersuchsVerwaltung().getNotenSketch(klausur);
+        grid.add(new Label("Median (P10 / P90):"), 0, 5);
+        grid.add(new Label(noten.getAnzahl() == 0 ? "-" : String.format("%.1f (%.1f / %.1f)",
+            noten.getMedian(), noten.quantil(0.1), noten.quantil(0.9))), 1, 5);
         
         container.getChildren().addAll(klausurLabel, grid);
         
@@ -497,18 +541,13 @@ public class StatistikView extends BorderPane {
         chart.setTitle("Notenverteilung");
         chart.setLegendVisible(false);
         
-        Map<String, Integer> notenCount = new TreeMap<>();
-        
-        studentenVerwaltung.getVersuchsVerwaltung().getVersucheFuerKlausur(klausur)
-            .forEach(v -> {
-                String noteStr = String.format("%.1f", v.getNote());
-                notenCount.merge(noteStr, 1, Integer::sum);
-            });
+        double[] notenstufen = VersuchsVerwaltung.getNotenstufen();
+        int[] verteilung = studentenVerwaltung.getVersuchsVerwaltung().getNotenverteilung(klausur);
         
         XYChart.Series<String, Number> series = new XYChart.Series<>();
-        notenCount.forEach((note, count) -> 
-            series.getData().add(new XYChart.Data<>(note, count))
-        );
+        for (int i = 0; i < notenstufen.length; i++) {
+            series.getData().add(new XYChart.Data<>(String.valueOf(notenstufen[i]), verteilung[i]));
+        }
         
         chart.getData().add(series);
         
@@ -521,12 +560,14 @@ public class StatistikView extends BorderPane {
         final int anzahl;
         final double durchschnitt;
         final int mitNoten;
+        final String notenQuantile;
         
-        StudiengangStatistik(String studiengang, int anzahl, double durchschnitt, int mitNoten) {
+        StudiengangStatistik(String studiengang, int anzahl, double durchschnitt, int mitNoten, String notenQuantile) {
             this.studiengang = studiengang;
             this.anzahl = anzahl;
             this.durchschnitt = durchschnitt;
             this.mitNoten = mitNoten;
+            this.notenQuantile = notenQuantile;
         }
     }
 }
\ No newline at end of file
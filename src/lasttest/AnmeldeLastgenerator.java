@@ -0,0 +1,268 @@
+package lasttest;
+
+import model.*;
+import util.Database;
+import util.ThreadFabrik;
+import verwaltung.BenachrichtigungsVersand;
+import verwaltung.ErweiterteStudentenVerwaltung;
+import verwaltung.KlausurVerwaltung;
+import verwaltung.SpeicherKanal;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lastgenerator für den Anmeldeansturm kurz vor Ablauf der Anmeldefrist.
+ *
+ * Legt eine synthetische Population über die Verwaltungsklassen in einer
+ * temporären SQLite-Datei an und feuert Anmeldungen und Noteneinträge mit fester
+ * Rate ab (offene Last: jede Operation hat einen geplanten Startzeitpunkt).
+ * Die Latenz wird ab dem geplanten Start gemessen, Wartezeiten durch
+ * Überlast fließen also mit ein. Jede Operation läuft in einem eigenen
+ * virtuellen Thread (ab Java 21), sonst in einem Pool aus Plattform-Threads.
+ *
+ * Aufruf: java lasttest.AnmeldeLastgenerator [studenten=5000] [klausuren=20]
+ *         [rate=2000] [dauer=10] [notenAnteil=0.2] [threads=256]
+ */
+public class AnmeldeLastgenerator {
+    private static final double[] NOTEN = {1.0, 1.3, 1.7, 2.0, 2.3, 2.7, 3.0, 3.3, 3.7, 4.0, 5.0};
+
+    private enum Operation { ANMELDUNG, NOTE }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parameter = leseParameter(args);
+        int anzahlStudenten = Integer.parseInt(parameter.getOrDefault("studenten", "5000"));
+        int anzahlKlausuren = Integer.parseInt(parameter.getOrDefault("klausuren", "20"));
+        int rate = Integer.parseInt(parameter.getOrDefault("rate", "2000"));
+        int dauerSekunden = Integer.parseInt(parameter.getOrDefault("dauer", "10"));
+        double notenAnteil = Double.parseDouble(parameter.getOrDefault("notenAnteil", "0.2"));
+        int threads = Integer.parseInt(parameter.getOrDefault("threads", "256"));
+        if (rate < 1 || dauerSekunden < 1 || anzahlStudenten < 1 || anzahlKlausuren < 1) {
+            throw new IllegalArgumentException("studenten, klausuren, rate und dauer müssen positiv sein!");
+        }
+
+        File dbDatei = File.createTempFile("anmelde-last", ".db");
+        dbDatei.deleteOnExit();
+        Database.setUrl("jdbc:sqlite:" + dbDatei.getAbsolutePath());
+        Database.aktiviereWriteBehind();
+
+        try {
+            ausfuehren(anzahlStudenten, anzahlKlausuren, rate, dauerSekunden, notenAnteil, threads);
+        } finally {
+            Database.schliessen();
+            for (String endung : new String[] {"", "-wal", "-shm"}) {
+                new File(dbDatei.getAbsolutePath() + endung).delete();
+            }
+        }
+    }
+
+    private static void ausfuehren(int anzahlStudenten, int anzahlKlausuren, int rate, int dauerSekunden,
+                                   double notenAnteil, int threads) throws Exception {
+        ErweiterteStudentenVerwaltung studentenVerwaltung = new ErweiterteStudentenVerwaltung();
+        KlausurVerwaltung klausurVerwaltung = new KlausurVerwaltung();
+        studentenVerwaltung.ladeAbhaengigeDaten(klausurVerwaltung);
+        // Benachrichtigungen im Speicher sammeln statt sie auf die Konsole zu schreiben
+        BenachrichtigungsVersand versand = studentenVerwaltung.getBenachrichtigungsVerwaltung().getVersand();
+        versand.getKanaele().forEach(versand::kanalEntfernen);
+        SpeicherKanal postausgang = new SpeicherKanal();
+        versand.kanalHinzufuegen(postausgang);
+
+        List<Student> studenten = new ArrayList<>(anzahlStudenten);
+        for (int i = 0; i < anzahlStudenten; i++) {
+            studenten.add(new Student(String.valueOf(10_000_000 + i), "Vorname" + i, "Nachname" + i,
+                    "Studiengang" + (i % 12)));
+        }
+        studentenVerwaltung.hinzufuegenAlle(studenten);
+
+        // Alle Fristen enden heute; Klausuren an verschiedenen Tagen, damit keine Tageskonflikte entstehen
+        List<Klausur> klausuren = new ArrayList<>(anzahlKlausuren);
+        LocalDate frist = LocalDate.now();
+        for (int i = 0; i < anzahlKlausuren; i++) {
+            Klausur klausur = new Klausur("LAST" + i, "Lastklausur " + i, "Lasttest",
+                    frist.plusDays(14 + i).atTime(9, 0), "H" + (i % 5), 3, frist);
+            klausurVerwaltung.hinzufuegen(klausur);
+            klausuren.add(klausur);
+        }
+
+        Map<Operation, Messung> messungen = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            messungen.put(operation, new Messung());
+        }
+
+        long intervallNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long anzahlOperationen = (long) rate * dauerSekunden;
+        long maxRueckstandNanos = 0;
+
+        System.out.printf("Lastgenerator: %d Studenten, %d Klausuren, %d Operationen/s für %d s, %s%n",
+                anzahlStudenten, anzahlKlausuren, rate, dauerSekunden,
+                ThreadFabrik.virtuelleThreadsVerfuegbar() ? "virtuelle Threads" : threads + " Plattform-Threads");
+
+        // Sonstige Konsolenausgaben während des Laufs unterdrücken
+        PrintStream konsole = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        long ende;
+        try {
+            ExecutorService executor = ThreadFabrik.proAufgabe("last", threads);
+            for (long i = 0; i < anzahlOperationen; i++) {
+                long geplant = start + i * intervallNanos;
+                long warten = geplant - System.nanoTime();
+                if (warten > 0) {
+                    LockSupport.parkNanos(warten);
+                } else {
+                    maxRueckstandNanos = Math.max(maxRueckstandNanos, -warten);
+                }
+
+                Operation operation = ThreadLocalRandom.current().nextDouble() < notenAnteil
+                        ? Operation.NOTE : Operation.ANMELDUNG;
+                Messung messung = messungen.get(operation);
+                executor.execute(() -> {
+                    Ergebnis ergebnis = operation == Operation.ANMELDUNG
+                            ? anmelden(studentenVerwaltung, studenten, klausuren)
+                            : noteEintragen(studentenVerwaltung, studenten);
+                    messung.erfassen(ergebnis, System.nanoTime() - geplant);
+                });
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(2, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+                System.err.println("Nicht alle Operationen innerhalb von 2 Minuten abgeschlossen");
+            }
+            ende = System.nanoTime();
+            versand.flush();
+        } finally {
+            System.setOut(konsole);
+        }
+
+        long flushStart = System.nanoTime();
+        Database.flush();
+        long flushMs = (System.nanoTime() - flushStart) / 1_000_000;
+        // Hintergrund-Schreiber und Versand dieser Verwaltung beenden (sonst bleiben ihre Threads bestehen)
+        studentenVerwaltung.schliessen();
+        double sekunden = (ende - start) / 1e9;
+
+        System.out.println("=== Ergebnis ===");
+        System.out.printf("Laufzeit: %.2f s | max. Rückstand des Generators: %.1f ms | Flush danach: %d ms%n",
+                sekunden, maxRueckstandNanos / 1e6, flushMs);
+        System.out.printf("%-10s %8s %8s %9s %7s %10s %9s %9s %9s %9s%n",
+                "Operation", "ok", "abgel.", "übersp.", "Fehler", "Durchsatz", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Operation, Messung> eintrag : messungen.entrySet()) {
+            System.out.println(eintrag.getValue().zeile(eintrag.getKey().name(), sekunden));
+        }
+        System.out.println("DB-Pool: " + Database.getPoolStatistik());
+        System.out.println("Write-Behind: " + Database.getWriteBehindStatistik());
+        System.out.println("Benachrichtigungen: " + versand.getStatistik());
+    }
+
+    private static Ergebnis anmelden(ErweiterteStudentenVerwaltung verwaltung, List<Student> studenten,
+                                     List<Klausur> klausuren) {
+        ThreadLocalRandom zufall = ThreadLocalRandom.current();
+        Student student = studenten.get(zufall.nextInt(studenten.size()));
+        Klausur klausur = klausuren.get(zufall.nextInt(klausuren.size()));
+        try {
+            verwaltung.anmeldenZuKlausur(student.getMatrikelnummer(), klausur);
+            return Ergebnis.OK;
+        } catch (KlausurKonfliktException | FristAbgelaufenException e) {
+            // Doppelte Anmeldung oder volle Klausur - regulär abgelehnt
+            return Ergebnis.ABGELEHNT;
+        } catch (RuntimeException e) {
+            return Ergebnis.FEHLER;
+        }
+    }
+
+    private static Ergebnis noteEintragen(ErweiterteStudentenVerwaltung verwaltung, List<Student> studenten) {
+        ThreadLocalRandom zufall = ThreadLocalRandom.current();
+        Student student = studenten.get(zufall.nextInt(studenten.size()));
+        List<Klausur> angemeldet = student.getAngemeldeteKlausuren();
+        if (angemeldet.isEmpty()) {
+            return Ergebnis.UEBERSPRUNGEN;
+        }
+        Klausur klausur = angemeldet.get(zufall.nextInt(angemeldet.size()));
+        try {
+            verwaltung.versuchEintragen(student.getMatrikelnummer(), klausur,
+                    NOTEN[zufall.nextInt(NOTEN.length)], LocalDate.now());
+            return Ergebnis.OK;
+        } catch (RuntimeException e) {
+            return Ergebnis.FEHLER;
+        }
+    }
+
+    private static Map<String, String> leseParameter(String[] args) {
+        Map<String, String> parameter = new HashMap<>();
+        for (String arg : args) {
+            int trenner = arg.indexOf('=');
+            if (trenner < 1) {
+                throw new IllegalArgumentException("Parameter im Format name=wert erwartet: " + arg);
+            }
+            parameter.put(arg.substring(0, trenner), arg.substring(trenner + 1));
+        }
+        return parameter;
+    }
+
+    private enum Ergebnis { OK, ABGELEHNT, UEBERSPRUNGEN, FEHLER }
+
+    /**
+     * Sammelt Ergebnisse und Latenzen einer Operationsart
+     */
+    private static class Messung {
+        private final AtomicLong[] zaehler = new AtomicLong[Ergebnis.values().length];
+        private long[] latenzenNanos = new long[1024];
+        private int anzahlLatenzen;
+
+        Messung() {
+            for (int i = 0; i < zaehler.length; i++) {
+                zaehler[i] = new AtomicLong();
+            }
+        }
+
+        void erfassen(Ergebnis ergebnis, long latenzNanos) {
+            zaehler[ergebnis.ordinal()].incrementAndGet();
+            if (ergebnis == Ergebnis.UEBERSPRUNGEN) {
+                return;
+            }
+            synchronized (this) {
+                if (anzahlLatenzen == latenzenNanos.length) {
+                    latenzenNanos = Arrays.copyOf(latenzenNanos, latenzenNanos.length * 2);
+                }
+                latenzenNanos[anzahlLatenzen++] = latenzNanos;
+            }
+        }
+
+        synchronized String zeile(String name, double sekunden) {
+            long[] sortiert = Arrays.copyOf(latenzenNanos, anzahlLatenzen);
+            Arrays.sort(sortiert);
+            return String.format("%-10s %8d %8d %9d %7d %8.0f/s %9.2f %9.2f %9.2f %9.2f",
+                    name,
+                    zaehler[Ergebnis.OK.ordinal()].get(),
+                    zaehler[Ergebnis.ABGELEHNT.ordinal()].get(),
+                    zaehler[Ergebnis.UEBERSPRUNGEN.ordinal()].get(),
+                    zaehler[Ergebnis.FEHLER.ordinal()].get(),
+                    sortiert.length / sekunden,
+                    quantilMs(sortiert, 0.50),
+                    quantilMs(sortiert, 0.99),
+                    quantilMs(sortiert, 0.999),
+                    sortiert.length == 0 ? 0.0 : sortiert[sortiert.length - 1] / 1e6);
+        }
+
+        private static double quantilMs(long[] sortiert, double quantil) {
+            if (sortiert.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantil * sortiert.length) - 1;
+            return sortiert[Math.max(0, Math.min(index, sortiert.length - 1))] / 1e6;
+        }
+    }
+}
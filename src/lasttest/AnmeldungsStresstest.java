@@ -0,0 +1,211 @@
+package lasttest;
+
+import model.*;
+import util.Database;
+import verwaltung.ErweiterteStudentenVerwaltung;
+import verwaltung.KlausurVerwaltung;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stresstest für parallele Klausuranmeldungen gegen eine temporäre Datenbank.
+ *
+ * Alle Studenten melden sich gleichzeitig zu einer stark begrenzten Klausur und
+ * zu einer zweiten Klausur am selben Tag an (in zufälliger Reihenfolge, teils doppelt).
+ * Geprüft wird, dass die Platzzahl nie überschritten wird, kein Student beide
+ * Klausuren erhält, keine Anmeldung verloren geht und die Datenbank übereinstimmt.
+ *
+ * Aufruf: java lasttest.AnmeldungsStresstest [studenten] [threads] [plaetze]
+ */
+public class AnmeldungsStresstest {
+    private static final String BELIEBT_ID = "STRESS_BELIEBT";
+    private static final String PARALLEL_ID = "STRESS_PARALLEL";
+
+    public static void main(String[] args) throws Exception {
+        int anzahlStudenten = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int anzahlThreads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int plaetze = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+
+        File dbDatei = File.createTempFile("anmeldung-stresstest", ".db");
+        dbDatei.deleteOnExit();
+        Database.setUrl("jdbc:sqlite:" + dbDatei.getAbsolutePath());
+        Database.aktiviereWriteBehind();
+
+        boolean ok;
+        try {
+            ok = ausfuehren(anzahlStudenten, anzahlThreads, plaetze);
+        } finally {
+            Database.schliessen();
+            loescheDatenbank(dbDatei);
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static boolean ausfuehren(int anzahlStudenten, int anzahlThreads, int plaetze) throws Exception {
+        ErweiterteStudentenVerwaltung studentenVerwaltung = new ErweiterteStudentenVerwaltung();
+        KlausurVerwaltung klausurVerwaltung = new KlausurVerwaltung();
+        studentenVerwaltung.ladeAbhaengigeDaten(klausurVerwaltung);
+
+        List<Student> studenten = new ArrayList<>(anzahlStudenten);
+        for (int i = 0; i < anzahlStudenten; i++) {
+            studenten.add(new Student(String.valueOf(10_000_000 + i), "Vorname" + i, "Nachname" + i, "Informatik"));
+        }
+        studentenVerwaltung.hinzufuegenAlle(studenten);
+
+        LocalDateTime termin = LocalDate.now().plusDays(30).atTime(10, 0);
+        Klausur beliebt = new Klausur(BELIEBT_ID, "Beliebte Klausur", "Stresstest", termin,
+                "AUDIMAX", 3, LocalDate.now().plusDays(20));
+        beliebt.setKapazitaet(plaetze);
+        klausurVerwaltung.hinzufuegen(beliebt);
+        // Gleicher Tag, daher Konflikt mit der beliebten Klausur; wird nicht in der
+        // KlausurVerwaltung registriert, weil hinzufuegen den Tageskonflikt ablehnen würde
+        Klausur parallel = new Klausur(PARALLEL_ID, "Parallele Klausur", "Stresstest", termin.plusHours(4),
+                "H2", 3, LocalDate.now().plusDays(20));
+
+        AtomicInteger erfolgBeliebt = new AtomicInteger();
+        AtomicInteger erfolgParallel = new AtomicInteger();
+        AtomicInteger voll = new AtomicInteger();
+        AtomicInteger konflikt = new AtomicInteger();
+        AtomicInteger unerwartet = new AtomicInteger();
+
+        List<Runnable> auftraege = new ArrayList<>();
+        for (Student student : studenten) {
+            auftraege.add(() -> {
+                List<Klausur> reihenfolge = new ArrayList<>(List.of(beliebt, parallel, beliebt));
+                Collections.shuffle(reihenfolge, ThreadLocalRandom.current());
+                for (Klausur klausur : reihenfolge) {
+                    try {
+                        studentenVerwaltung.anmeldenZuKlausur(student.getMatrikelnummer(), klausur);
+                        (klausur == beliebt ? erfolgBeliebt : erfolgParallel).incrementAndGet();
+                    } catch (KlausurVollException e) {
+                        voll.incrementAndGet();
+                    } catch (KlausurKonfliktException e) {
+                        konflikt.incrementAndGet();
+                    } catch (Exception e) {
+                        unerwartet.incrementAndGet();
+                        System.err.println("Unerwarteter Fehler: " + e);
+                    }
+                }
+            });
+        }
+        Collections.shuffle(auftraege);
+
+        // Benachrichtigungen schreiben jede Anmeldung auf die Konsole - während des Laufs unterdrücken
+        PrintStream konsole = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        try {
+            ExecutorService pool = Executors.newFixedThreadPool(anzahlThreads);
+            CountDownLatch startsignal = new CountDownLatch(1);
+            for (Runnable auftrag : auftraege) {
+                pool.execute(() -> {
+                    try {
+                        startsignal.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    auftrag.run();
+                });
+            }
+            startsignal.countDown();
+            pool.shutdown();
+            if (!pool.awaitTermination(5, TimeUnit.MINUTES)) {
+                pool.shutdownNow();
+                throw new IllegalStateException("Stresstest nicht innerhalb von 5 Minuten beendet");
+            }
+            // Asynchron zugestellte Benachrichtigungen noch vor dem Zurücksetzen der Konsole ausgeben
+            studentenVerwaltung.getBenachrichtigungsVerwaltung().getVersand().flush();
+        } finally {
+            System.setOut(konsole);
+        }
+        long dauerMs = (System.nanoTime() - start) / 1_000_000;
+        Database.flush();
+        // Hintergrund-Schreiber und Versand dieser Verwaltung beenden (sonst bleiben ihre Threads bestehen)
+        studentenVerwaltung.schliessen();
+
+        System.out.println("=== Anmeldungs-Stresstest ===");
+        System.out.printf("%d Studenten, %d Threads, %d Plätze, %d ms%n", anzahlStudenten, anzahlThreads, plaetze, dauerMs);
+        System.out.printf("Erfolgreich: %d beliebt, %d parallel | Abgelehnt: %d voll, %d Konflikt | Unerwartet: %d%n",
+                erfolgBeliebt.get(), erfolgParallel.get(), voll.get(), konflikt.get(), unerwartet.get());
+
+        List<String> fehler = new ArrayList<>();
+        pruefe(fehler, unerwartet.get() == 0, "Unerwartete Fehler aufgetreten");
+        pruefe(fehler, beliebt.getTeilnehmerAnzahl() <= plaetze,
+                "Überbucht: " + beliebt.getTeilnehmerAnzahl() + " > " + plaetze);
+        pruefe(fehler, beliebt.getTeilnehmerAnzahl() == erfolgBeliebt.get(),
+                "Verlorene Anmeldungen (beliebt): Liste " + beliebt.getTeilnehmerAnzahl() + ", Erfolge " + erfolgBeliebt.get());
+        pruefe(fehler, parallel.getTeilnehmerAnzahl() == erfolgParallel.get(),
+                "Verlorene Anmeldungen (parallel): Liste " + parallel.getTeilnehmerAnzahl() + ", Erfolge " + erfolgParallel.get());
+        pruefe(fehler, beliebt.getTeilnehmerAnzahl() + parallel.getTeilnehmerAnzahl() == anzahlStudenten,
+                "Nicht jeder Student hat genau einen Platz erhalten");
+
+        int doppelt = 0;
+        int inkonsistent = 0;
+        for (Student student : studenten) {
+            List<Klausur> angemeldet = student.getAngemeldeteKlausuren();
+            if (angemeldet.size() != 1) {
+                doppelt++;
+            }
+            for (Klausur klausur : List.of(beliebt, parallel)) {
+                if (angemeldet.contains(klausur) != klausur.istStudentZugelassen(student)) {
+                    inkonsistent++;
+                }
+            }
+        }
+        pruefe(fehler, doppelt == 0, doppelt + " Studenten ohne oder mit mehreren Anmeldungen");
+        pruefe(fehler, inkonsistent == 0, inkonsistent + " Abweichungen zwischen Student und Klausur");
+
+        int inDatenbank = zaehleAnmeldungenInDatenbank();
+        pruefe(fehler, inDatenbank == anzahlStudenten,
+                "Datenbank enthält " + inDatenbank + " statt " + anzahlStudenten + " Anmeldungen");
+
+        if (fehler.isEmpty()) {
+            System.out.println("✅ Keine Doppelbuchungen, keine verlorenen Anmeldungen");
+            return true;
+        }
+        fehler.forEach(f -> System.out.println("❌ " + f));
+        return false;
+    }
+
+    private static void pruefe(List<String> fehler, boolean bedingung, String meldung) {
+        if (!bedingung) {
+            fehler.add(meldung);
+        }
+    }
+
+    private static int zaehleAnmeldungenInDatenbank() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM anmeldung WHERE klausur_id IN ('" + BELIEBT_ID + "', '" + PARALLEL_ID + "')";
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void loescheDatenbank(File dbDatei) {
+        for (String endung : new String[] {"", "-wal", "-shm"}) {
+            File datei = new File(dbDatei.getAbsolutePath() + endung);
+            if (datei.exists() && !datei.delete()) {
+                System.err.println("Temporäre Datei konnte nicht gelöscht werden: " + datei);
+            }
+        }
+    }
+}
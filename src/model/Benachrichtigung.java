@@ -12,6 +12,7 @@ public class Benachrichtigung {
     private LocalDateTime zeitpunkt;
     private BenachrichtigungsTyp typ;
     private boolean gelesen;
+    private GelesenListener gelesenListener;
     
     public enum BenachrichtigungsTyp {
         FRISTERINNERUNG, KLAUSUR_ANMELDUNG, NOTE_VERFUEGBAR, WARNUNG
@@ -32,10 +33,33 @@ public class Benachrichtigung {
     public String getNachricht() { return nachricht; }
     public LocalDateTime getZeitpunkt() { return zeitpunkt; }
     public BenachrichtigungsTyp getTyp() { return typ; }
-    public boolean istGelesen() { return gelesen; }
+    public synchronized boolean istGelesen() { return gelesen; }
+    
+    /**
+     * Wird benachrichtigt, wenn die Benachrichtigung erstmals gelesen wird
+     * (z.B. um Ungelesen-Zähler aktuell zu halten)
+     */
+    public interface GelesenListener {
+        void gelesen(Benachrichtigung benachrichtigung);
+    }
+    
+    public synchronized void setGelesenListener(GelesenListener listener) {
+        this.gelesenListener = listener;
+    }
     
     public void markiereAlsGelesen() {
-        this.gelesen = true;
+        GelesenListener listener;
+        synchronized (this) {
+            if (gelesen) {
+                return;
+            }
+            gelesen = true;
+            listener = gelesenListener;
+        }
+        // Außerhalb der Sperre, da der Listener selbst Sperren der Verwaltung nimmt
+        if (listener != null) {
+            listener.gelesen(this);
+        }
     }
     
     /**
@@ -3,7 +3,11 @@ package model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Repräsentiert eine Prüfung/Klausur
@@ -16,8 +20,24 @@ public class Klausur implements Comparable<Klausur> {
     private String raum;
     private int maxVersuche;
     private LocalDate anmeldefrist;
-    private List<Student> teilnehmendeStudenten;
+    // Anmeldereihenfolge bleibt erhalten, Mitgliedschaft in O(1)
+    private Set<Student> teilnehmendeStudenten;
+    // Platzbegrenzung der Klausur selbst und des Raums (0 = unbegrenzt)
+    private int kapazitaet;
+    private int raumKapazitaet;
+    // Studiengänge, für die die Klausur angeboten wird (leer = alle)
+    private Set<String> studiengaenge = Collections.emptySet();
     private Dozent verantwortlicherDozent;
+    private List<AenderungsListener> aenderungsListener = new ArrayList<>();
+    
+    /**
+     * Wird vor und nach Änderungen an Termin, Raum, Kapazität, Anmeldefrist oder
+     * Studiengängen benachrichtigt, damit Indizes die Klausur neu einordnen können
+     */
+    public interface AenderungsListener {
+        void vorAenderung(Klausur klausur);
+        void nachAenderung(Klausur klausur);
+    }
     
     public Klausur(String id, String titel, String modul, LocalDateTime datum, String raum, int maxVersuche, LocalDate anmeldefrist) {
         this.id = id;
@@ -27,7 +47,7 @@ public class Klausur implements Comparable<Klausur> {
         this.raum = raum;
         this.maxVersuche = maxVersuche;
         this.anmeldefrist = anmeldefrist;
-        this.teilnehmendeStudenten = new ArrayList<>();
+        this.teilnehmendeStudenten = new LinkedHashSet<>();
     }
     
     // Getter/Setter
@@ -38,12 +58,61 @@ public class Klausur implements Comparable<Klausur> {
     public String getRaum() { return raum; }
     public int getMaxVersuche() { return maxVersuche; }
     public LocalDate getAnmeldefrist() { return anmeldefrist; }
+    public int getKapazitaet() { return kapazitaet; }
+    public int getRaumKapazitaet() { return raumKapazitaet; }
+    public Set<String> getStudiengaenge() { return studiengaenge; }
     
-    public void setDatum(LocalDateTime datum) { this.datum = datum; }
-    public void setRaum(String raum) { this.raum = raum; }
-    public void setAnmeldefrist(LocalDate anmeldefrist) { this.anmeldefrist = anmeldefrist; }
+    public void setDatum(LocalDateTime datum) { aendern(() -> this.datum = datum); }
+    public void setRaum(String raum) { aendern(() -> this.raum = raum); }
+    public void setKapazitaet(int kapazitaet) {
+        if (kapazitaet < 0) {
+            throw new IllegalArgumentException("Kapazität darf nicht negativ sein!");
+        }
+        aendern(() -> this.kapazitaet = kapazitaet);
+    }
+    public void setRaumKapazitaet(int raumKapazitaet) { this.raumKapazitaet = Math.max(0, raumKapazitaet); }
+    public void setAnmeldefrist(LocalDate anmeldefrist) { aendern(() -> this.anmeldefrist = anmeldefrist); }
+    public void setStudiengaenge(Collection<String> studiengaenge) {
+        Set<String> neu = new LinkedHashSet<>();
+        if (studiengaenge != null) {
+            for (String studiengang : studiengaenge) {
+                if (studiengang != null && !studiengang.trim().isEmpty()) {
+                    neu.add(studiengang.trim());
+                }
+            }
+        }
+        aendern(() -> this.studiengaenge = Collections.unmodifiableSet(neu));
+    }
     public void setVerantwortlicherDozent(Dozent dozent) { this.verantwortlicherDozent = dozent; }
     
+    public void addAenderungsListener(AenderungsListener listener) {
+        aenderungsListener.add(listener);
+    }
+    
+    public void removeAenderungsListener(AenderungsListener listener) {
+        aenderungsListener.remove(listener);
+    }
+    
+    private void aendern(Runnable aenderung) {
+        for (AenderungsListener listener : aenderungsListener) {
+            listener.vorAenderung(this);
+        }
+        try {
+            aenderung.run();
+        } finally {
+            for (AenderungsListener listener : aenderungsListener) {
+                listener.nachAenderung(this);
+            }
+        }
+    }
+    
+    /**
+     * Prüft, ob die Klausur für den Studiengang angeboten wird
+     */
+    public boolean istOffenFuer(String studiengang) {
+        return studiengaenge.isEmpty() || studiengaenge.contains(studiengang);
+    }
+    
     /**
      * Prüft, ob die Anmeldefrist abgelaufen ist
      */
@@ -54,10 +123,25 @@ public class Klausur implements Comparable<Klausur> {
     /**
      * Prüft, ob ein Student zur Klausur zugelassen ist
      */
-    public boolean istStudentZugelassen(Student student) {
+    public synchronized boolean istStudentZugelassen(Student student) {
         return teilnehmendeStudenten.contains(student);
     }
     
+    /**
+     * Gibt die wirksame Platzzahl zurück: die kleinere der Klausur- und
+     * Raumkapazität, 0 wenn keine von beiden gesetzt ist
+     */
+    public int getEffektiveKapazitaet() {
+        if (kapazitaet == 0) return raumKapazitaet;
+        if (raumKapazitaet == 0) return kapazitaet;
+        return Math.min(kapazitaet, raumKapazitaet);
+    }
+    
+    public synchronized boolean istVoll() {
+        int plaetze = getEffektiveKapazitaet();
+        return plaetze > 0 && teilnehmendeStudenten.size() >= plaetze;
+    }
+    
     /**
      * Prüft auf zeitliche Konflikte mit einer anderen Klausur
      */
@@ -68,24 +152,69 @@ public class Klausur implements Comparable<Klausur> {
         return this.datum.toLocalDate().equals(andere.datum.toLocalDate());
     }
     
-    public void studentHinzufuegen(Student student) throws FristAbgelaufenException {
+    public synchronized void studentHinzufuegen(Student student) throws FristAbgelaufenException, KlausurVollException {
         if (istFristAbgelaufen()) {
             throw new FristAbgelaufenException("Anmeldefrist ist abgelaufen!");
         }
-        if (!teilnehmendeStudenten.contains(student)) {
-            teilnehmendeStudenten.add(student);
+        if (teilnehmendeStudenten.contains(student)) {
+            return;
+        }
+        if (istVoll()) {
+            throw new KlausurVollException("Klausur " + titel + " ist ausgebucht ("
+                    + getEffektiveKapazitaet() + " Plätze)!");
         }
+        teilnehmendeStudenten.add(student);
+    }
+    
+    /**
+     * Stellt eine gespeicherte Anmeldung ohne Fristprüfung wieder her (beim Laden aus der Datenbank)
+     */
+    public synchronized void teilnehmerWiederherstellen(Student student) {
+        teilnehmendeStudenten.add(student);
+    }
+    
+    /**
+     * Gibt den Platz eines Studenten frei (z.B. wenn der Student gelöscht wird)
+     */
+    public synchronized void studentEntfernen(Student student) {
+        teilnehmendeStudenten.remove(student);
     }
     
-    public List<Student> getTeilnehmendeStudenten() {
+    public synchronized List<Student> getTeilnehmendeStudenten() {
         return new ArrayList<>(teilnehmendeStudenten);
     }
     
+    /**
+     * Nicht veränderbare Ansicht der Teilnehmer (ohne Kopie). Nicht synchronisiert;
+     * bei parallelen Anmeldungen getTeilnehmendeStudenten verwenden.
+     */
+    public Set<Student> getTeilnehmer() {
+        return Collections.unmodifiableSet(teilnehmendeStudenten);
+    }
+    
+    public synchronized int getTeilnehmerAnzahl() {
+        return teilnehmendeStudenten.size();
+    }
+    
     @Override
     public int compareTo(Klausur other) {
         return this.datum.compareTo(other.datum);
     }
     
+    // Gleichheit über die ID (analog zur Matrikelnummer bei Student)
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        Klausur klausur = (Klausur) obj;
+        return id.equals(klausur.id);
+    }
+    
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+    
     @Override
     public String toString() {
         return titel + " (" + modul + ") - " + datum.toLocalDate() + " in " + raum;
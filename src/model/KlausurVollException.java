@@ -0,0 +1,10 @@
+package model;
+
+/**
+ * Exception wenn alle Plätze einer Klausur vergeben sind
+ */
+public class KlausurVollException extends KlausurKonfliktException {
+    public KlausurVollException(String message) {
+        super(message);
+    }
+}
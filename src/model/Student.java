@@ -2,7 +2,13 @@ package model;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 
 /**
@@ -17,7 +23,23 @@ public class Student extends Person implements Comparable<Student> {
     private String matrikelnummer;
     private String studiengang;
     private List<Versuch> versuche;
-    private List<Klausur> angemeldeteKlausuren;
+    // Versuche je Klausur, nach Datum sortiert
+    private Map<Klausur, List<Versuch>> versucheNachKlausur;
+    private Set<Klausur> angemeldeteKlausuren;
+    // Laufende Summe/Anzahl der bestandenen Noten für den Durchschnitt in O(1)
+    private double summeBestandeneNoten;
+    private int anzahlBestandene;
+    private List<AenderungsListener> aenderungsListener = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Wird vor und nach Änderungen an Name oder Studiengang benachrichtigt,
+     * damit sortierte Strukturen den Studenten umsortieren können. Jeder
+     * Listener, der vorAenderung erhalten hat, erhält auch nachAenderung.
+     */
+    public interface AenderungsListener {
+        void vorAenderung(Student student);
+        void nachAenderung(Student student);
+    }
     
     public Student(String matrikelnummer, String vorname, String nachname, String studiengang) {
         super(matrikelnummer, vorname, nachname, LocalDate.now()); // Temporary
@@ -52,7 +74,8 @@ public class Student extends Person implements Comparable<Student> {
         this.matrikelnummer = matrikelnummer;
         this.studiengang = studiengang.trim();
         this.versuche = new ArrayList<>();
-        this.angemeldeteKlausuren = new ArrayList<>();
+        this.versucheNachKlausur = new HashMap<>();
+        this.angemeldeteKlausuren = new LinkedHashSet<>();
     }
     
     /**
@@ -77,47 +100,123 @@ public class Student extends Person implements Comparable<Student> {
         if (studiengang == null || studiengang.trim().isEmpty()) {
             throw new IllegalArgumentException("Studiengang darf nicht leer sein!");
         }
-        this.studiengang = studiengang.trim(); 
+        aendern(() -> this.studiengang = studiengang.trim());
+    }
+    
+    @Override
+    public void setVorname(String vorname) {
+        aendern(() -> super.setVorname(vorname));
+    }
+    
+    @Override
+    public void setNachname(String nachname) {
+        aendern(() -> super.setNachname(nachname));
+    }
+    
+    public void addAenderungsListener(AenderungsListener listener) {
+        aenderungsListener.add(listener);
+    }
+    
+    public void removeAenderungsListener(AenderungsListener listener) {
+        aenderungsListener.remove(listener);
+    }
+    
+    private void aendern(Runnable aenderung) {
+        // Dieselbe Momentaufnahme für vor und nach, auch wenn parallel Listener wechseln
+        List<AenderungsListener> empfaenger = List.copyOf(aenderungsListener);
+        for (AenderungsListener listener : empfaenger) {
+            listener.vorAenderung(this);
+        }
+        try {
+            aenderung.run();
+        } finally {
+            for (AenderungsListener listener : empfaenger) {
+                listener.nachAenderung(this);
+            }
+        }
     }
     
     // Versuch-Management
-    public void addVersuch(Versuch versuch) {
+    public synchronized void addVersuch(Versuch versuch) {
         if (versuch != null) {
             this.versuche.add(versuch);
+            Versuch.nachDatumEinfuegen(versucheNachKlausur.computeIfAbsent(versuch.getKlausur(), k -> new ArrayList<>()), versuch);
+            if (versuch.istBestanden()) {
+                summeBestandeneNoten += versuch.getNote();
+                anzahlBestandene++;
+            }
         }
     }
     
-    public void removeVersuch(Versuch versuch) {
-        this.versuche.remove(versuch);
+    public synchronized void removeVersuch(Versuch versuch) {
+        if (!this.versuche.remove(versuch)) {
+            return;
+        }
+        List<Versuch> klausurVersuche = versucheNachKlausur.get(versuch.getKlausur());
+        if (klausurVersuche != null) {
+            klausurVersuche.remove(versuch);
+            if (klausurVersuche.isEmpty()) {
+                versucheNachKlausur.remove(versuch.getKlausur());
+            }
+        }
+        if (versuch.istBestanden()) {
+            anzahlBestandene--;
+            // Rundungsfehler nicht über viele Änderungen ansammeln
+            summeBestandeneNoten = anzahlBestandene == 0 ? 0.0 : summeBestandeneNoten - versuch.getNote();
+        }
     }
     
-    public List<Versuch> getVersuche() {
+    public synchronized List<Versuch> getVersuche() {
         return new ArrayList<>(versuche); // Defensive copy
     }
     
     // Klausur-Anmeldung
-    public void anmeldenZuKlausur(Klausur klausur) throws FristAbgelaufenException {
+    public synchronized void anmeldenZuKlausur(Klausur klausur) throws FristAbgelaufenException {
         if (klausur.istFristAbgelaufen()) {
             throw new FristAbgelaufenException("Anmeldefrist für " + klausur.getTitel() + " ist abgelaufen!");
         }
-        if (!angemeldeteKlausuren.contains(klausur)) {
-            angemeldeteKlausuren.add(klausur);
-        }
+        angemeldeteKlausuren.add(klausur);
+    }
+    
+    /**
+     * Stellt eine gespeicherte Anmeldung ohne Fristprüfung wieder her (beim Laden aus der Datenbank)
+     */
+    public synchronized void anmeldungWiederherstellen(Klausur klausur) {
+        angemeldeteKlausuren.add(klausur);
     }
     
-    public List<Klausur> getAngemeldeteKlausuren() {
+    /**
+     * Entfernt die Anmeldung zu einer Klausur (z.B. wenn die Klausur gelöscht wird)
+     */
+    public synchronized void abmeldenVonKlausur(Klausur klausur) {
+        angemeldeteKlausuren.remove(klausur);
+    }
+    
+    public synchronized List<Klausur> getAngemeldeteKlausuren() {
         return new ArrayList<>(angemeldeteKlausuren);
     }
     
+    /**
+     * Nicht veränderbare Ansicht der Anmeldungen (ohne Kopie). Nicht synchronisiert;
+     * bei parallelen Anmeldungen getAngemeldeteKlausuren verwenden.
+     */
+    public Set<Klausur> getAnmeldungen() {
+        return Collections.unmodifiableSet(angemeldeteKlausuren);
+    }
+    
+    public synchronized boolean istAngemeldetZu(Klausur klausur) {
+        return angemeldeteKlausuren.contains(klausur);
+    }
+    
     /**
      * Zeigt den aktuellen Prüfungsstatus für alle Klausuren
      */
-    public String zeigePruefungsstatus() {
+    public synchronized String zeigePruefungsstatus() {
         StringBuilder status = new StringBuilder();
         status.append("Prüfungsstatus für ").append(getVorname()).append(" ").append(getNachname()).append(":\n");
         
         for (Klausur klausur : angemeldeteKlausuren) {
-            List<Versuch> klausurVersuche = getVersucheFuerKlausur(klausur);
+            List<Versuch> klausurVersuche = versucheNachKlausur.getOrDefault(klausur, List.of());
             if (klausurVersuche.isEmpty()) {
                 status.append("- ").append(klausur.getTitel()).append(": Angemeldet, noch nicht absolviert\n");
             } else {
@@ -136,31 +235,52 @@ public class Student extends Person implements Comparable<Student> {
     }
     
     /**
-     * Berechnet den Notendurchschnitt aller bestandenen Prüfungen
+     * Gibt den Notendurchschnitt aller bestandenen Prüfungen zurück
+     * (wird in addVersuch/removeVersuch laufend mitgeführt)
      */
-    public double berechneNotendurchschnitt() {
-        List<Double> bestandeneNoten = new ArrayList<>();
-        
-        for (Versuch versuch : versuche) {
-            if (versuch.istBestanden()) {
-                bestandeneNoten.add(versuch.getNote());
-            }
-        }
-        
-        if (bestandeneNoten.isEmpty()) {
+    public synchronized double berechneNotendurchschnitt() {
+        if (anzahlBestandene == 0) {
             return 0.0; // Keine bestandenen Prüfungen
         }
-        
-        double summe = bestandeneNoten.stream().mapToDouble(Double::doubleValue).sum();
-        return summe / bestandeneNoten.size();
+        return summeBestandeneNoten / anzahlBestandene;
     }
     
-    private List<Versuch> getVersucheFuerKlausur(Klausur klausur) {
-        return versuche.stream()
-                .filter(v -> v.getKlausur().equals(klausur))
-                .toList();
+    /**
+     * Gibt die Anzahl der bestandenen Prüfungsversuche zurück
+     */
+    public synchronized int getAnzahlBestandene() {
+        return anzahlBestandene;
+    }
+    
+    /**
+     * Gibt die Versuche zu einer Klausur nach Datum sortiert zurück
+     */
+    public synchronized List<Versuch> getVersucheFuerKlausur(Klausur klausur) {
+        List<Versuch> klausurVersuche = versucheNachKlausur.get(klausur);
+        return klausurVersuche == null ? new ArrayList<>() : new ArrayList<>(klausurVersuche);
     }
     
+    /**
+     * Prüft, ob mindestens ein Versuch der Klausur bestanden wurde
+     */
+    public synchronized boolean hatBestanden(Klausur klausur) {
+        List<Versuch> klausurVersuche = versucheNachKlausur.get(klausur);
+        if (klausurVersuche != null) {
+            for (Versuch versuch : klausurVersuche) {
+                if (versuch.istBestanden()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    public synchronized int getAnzahlVersuche(Klausur klausur) {
+        List<Versuch> klausurVersuche = versucheNachKlausur.get(klausur);
+        return klausurVersuche == null ? 0 : klausurVersuche.size();
+    }
+
+    
     // Überschreibe equals und hashCode für korrekte Duplikat-Erkennung
     @Override
     public boolean equals(Object obj) {
@@ -1,6 +1,7 @@
 package model;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Repräsentiert einen konkreten Prüfungsversuch
@@ -49,6 +50,18 @@ public class Versuch implements Comparable<Versuch> {
         return "Nicht bestanden";
     }
     
+    /**
+     * Sortiert einen Versuch in eine nach Datum sortierte Liste ein. Versuche
+     * kommen meist chronologisch an, daher wird vom Ende her gesucht.
+     */
+    public static void nachDatumEinfuegen(List<Versuch> liste, Versuch versuch) {
+        int position = liste.size();
+        while (position > 0 && liste.get(position - 1).compareTo(versuch) > 0) {
+            position--;
+        }
+        liste.add(position, versuch);
+    }
+    
     @Override
     public int compareTo(Versuch other) {
         return this.datum.compareTo(other.datum);
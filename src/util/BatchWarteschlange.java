@@ -0,0 +1,257 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Begrenzte Warteschlange, deren Einträge von Hintergrund-Threads
+ * gesammelt und blockweise verarbeitet werden.
+ *
+ * Ist die Warteschlange voll, blockiert {@link #einreihen(Object)} den Aufrufer
+ * (Backpressure). {@link #flush()} wartet, bis alles bis dahin Eingereihte
+ * verarbeitet wurde.
+ */
+public class BatchWarteschlange<T> {
+
+    /**
+     * Verarbeitet einen Block von Einträgen
+     */
+    @FunctionalInterface
+    public interface Verarbeiter<T> {
+        void verarbeite(List<T> batch) throws Exception;
+    }
+
+    private final String name;
+    private final BlockingQueue<T> warteschlange;
+    private final int maxBatchGroesse;
+    private final long flushIntervallNanos;
+    private final Verarbeiter<T> verarbeiter;
+    private final List<Thread> worker = new ArrayList<>();
+    private volatile boolean laeuft = true;
+    // Einreihen (geteilt) schließt das Beenden (exklusiv) aus: Nach dem Beenden
+    // kann kein Eintrag mehr hinzukommen, den die Worker nicht mehr abholen
+    private final ReadWriteLock zustandLock = new ReentrantReadWriteLock();
+
+    // Fortschritt für flush()
+    private final AtomicLong eingereiht = new AtomicLong();
+    private final Object fortschrittLock = new Object();
+    private long abgeschlossen;
+
+    // Statistik
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong fehler = new AtomicLong();
+
+    /**
+     * @param kapazitaet maximale Anzahl wartender Einträge
+     * @param maxBatchGroesse maximale Anzahl Einträge pro Verarbeitungsblock
+     * @param flushIntervallMs wie lange nach dem ersten Eintrag auf weitere gewartet wird (0 = sofort)
+     * @param anzahlWorker Anzahl der Hintergrund-Threads (1 erhält die Reihenfolge)
+     */
+    public BatchWarteschlange(String name, int kapazitaet, int maxBatchGroesse, long flushIntervallMs,
+                              int anzahlWorker, Verarbeiter<T> verarbeiter) {
+        if (kapazitaet < 1 || maxBatchGroesse < 1 || anzahlWorker < 1 || flushIntervallMs < 0) {
+            throw new IllegalArgumentException("Ungültige Konfiguration für Warteschlange " + name);
+        }
+        this.name = name;
+        this.warteschlange = new ArrayBlockingQueue<>(kapazitaet);
+        this.maxBatchGroesse = maxBatchGroesse;
+        this.flushIntervallNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervallMs);
+        this.verarbeiter = verarbeiter;
+
+        for (int i = 0; i < anzahlWorker; i++) {
+            Thread thread = new Thread(this::arbeiten, name + "-" + (i + 1));
+            thread.setDaemon(true);
+            worker.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Reiht einen Eintrag ein und blockiert, solange die Warteschlange voll ist
+     */
+    public void einreihen(T eintrag) {
+        zustandLock.readLock().lock();
+        try {
+            pruefeLaeuft();
+            warteschlange.put(eintrag);
+            eingereiht.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Einreihen in " + name + " unterbrochen", e);
+        } finally {
+            zustandLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reiht einen Eintrag ein und wartet höchstens die angegebene Zeit auf einen freien Platz
+     * @return false, wenn die Warteschlange voll geblieben ist
+     */
+    public boolean versucheEinzureihen(T eintrag, long timeout, TimeUnit einheit) {
+        zustandLock.readLock().lock();
+        try {
+            pruefeLaeuft();
+            if (warteschlange.offer(eintrag, timeout, einheit)) {
+                eingereiht.incrementAndGet();
+                return true;
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            zustandLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Wartet, bis alle bisher eingereihten Einträge verarbeitet wurden
+     */
+    public void flush() {
+        long ziel = eingereiht.get();
+        synchronized (fortschrittLock) {
+            while (abgeschlossen < ziel) {
+                try {
+                    fortschrittLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (!laeuft && worker.stream().noneMatch(Thread::isAlive)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Verarbeitet alle wartenden Einträge und beendet die Hintergrund-Threads
+     */
+    public void beenden() {
+        // Wartet, bis laufende Einreihungen abgeschlossen sind
+        zustandLock.writeLock().lock();
+        try {
+            laeuft = false;
+        } finally {
+            zustandLock.writeLock().unlock();
+        }
+        for (Thread thread : worker) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public boolean laeuft() {
+        return laeuft;
+    }
+
+    public int getTiefe() {
+        return warteschlange.size();
+    }
+
+    public Statistik getStatistik() {
+        long fertig;
+        synchronized (fortschrittLock) {
+            fertig = abgeschlossen;
+        }
+        return new Statistik(warteschlange.size(), eingereiht.get(), fertig, batches.get(), fehler.get());
+    }
+
+    private void pruefeLaeuft() {
+        if (!laeuft) {
+            throw new IllegalStateException("Warteschlange " + name + " wurde bereits beendet");
+        }
+    }
+
+    private void arbeiten() {
+        while (laeuft || !warteschlange.isEmpty()) {
+            T erster;
+            try {
+                erster = warteschlange.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Beim Beenden trotzdem noch den Rest abarbeiten
+                continue;
+            }
+            if (erster == null) {
+                continue;
+            }
+
+            List<T> batch = new ArrayList<>();
+            batch.add(erster);
+            warteschlange.drainTo(batch, maxBatchGroesse - 1);
+            sammleBisIntervallEnde(batch);
+            verarbeite(batch);
+        }
+    }
+
+    private void sammleBisIntervallEnde(List<T> batch) {
+        long ende = System.nanoTime() + flushIntervallNanos;
+        while (batch.size() < maxBatchGroesse && laeuft) {
+            long rest = ende - System.nanoTime();
+            if (rest <= 0) {
+                return;
+            }
+            try {
+                T naechster = warteschlange.poll(rest, TimeUnit.NANOSECONDS);
+                if (naechster == null) {
+                    return;
+                }
+                batch.add(naechster);
+                warteschlange.drainTo(batch, maxBatchGroesse - batch.size());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void verarbeite(List<T> batch) {
+        try {
+            verarbeiter.verarbeite(batch);
+        } catch (Exception e) {
+            fehler.incrementAndGet();
+            System.err.println("Fehler in " + name + " (" + batch.size() + " Einträge): " + e.getMessage());
+        } finally {
+            batches.incrementAndGet();
+            synchronized (fortschrittLock) {
+                abgeschlossen += batch.size();
+                fortschrittLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Momentaufnahme der Warteschlangen-Kennzahlen
+     */
+    public static class Statistik {
+        public final int tiefe;
+        public final long eingereiht;
+        public final long verarbeitet;
+        public final long batches;
+        public final long fehler;
+
+        public Statistik(int tiefe, long eingereiht, long verarbeitet, long batches, long fehler) {
+            this.tiefe = tiefe;
+            this.eingereiht = eingereiht;
+            this.verarbeitet = verarbeitet;
+            this.batches = batches;
+            this.fehler = fehler;
+        }
+
+        @Override
+        public String toString() {
+            double proBatch = batches == 0 ? 0.0 : (double) verarbeitet / batches;
+            return String.format("Wartend: %d | Eingereiht: %d | Verarbeitet: %d | Batches: %d (Ø %.1f) | Fehler: %d",
+                    tiefe, eingereiht, verarbeitet, batches, proBatch, fehler);
+        }
+    }
+}
@@ -1,10 +1,76 @@
 package util;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Verbindungsverwaltung für die SQLite-Datenbank.
+ *
+ * Hält einen begrenzten Pool wiederverwendbarer Verbindungen im WAL-Modus.
+ * {@link #connect()} leiht eine Verbindung aus, {@code close()} gibt sie an den
+ * Pool zurück statt sie physisch zu schließen.
+ *
+ * Konfiguration über System-Properties:
+ * <ul>
+ *   <li>{@code klausurverwaltung.db.url} (Standard: jdbc:sqlite:klausurverwaltung.db)</li>
+ *   <li>{@code klausurverwaltung.db.poolGroesse} (Standard: 4)</li>
+ *   <li>{@code klausurverwaltung.db.wartezeitMs} - max. Wartezeit beim Ausleihen (Standard: 30000)</li>
+ *   <li>{@code klausurverwaltung.db.synchronous} (Standard: NORMAL)</li>
+ *   <li>{@code klausurverwaltung.db.cacheSize} in Seiten bzw. negativ in KiB (Standard: -16000)</li>
+ *   <li>{@code klausurverwaltung.db.mmapSize} in Bytes (Standard: 268435456)</li>
+ *   <li>{@code klausurverwaltung.db.busyTimeoutMs} (Standard: 5000)</li>
+ * </ul>
+ *
+ * Schreibzugriffe über {@link #schreiben(String, SchreibOperation)} laufen entweder
+ * synchron oder - nach {@link #aktiviereWriteBehind()} - über eine Warteschlange,
+ * die ein Hintergrund-Thread in gebündelten Transaktionen abarbeitet.
+ */
 public class Database {
-    private static final String DB_URL = "jdbc:sqlite:klausurverwaltung.db";
-    
+    private static final String DEFAULT_URL = "jdbc:sqlite:klausurverwaltung.db";
+
+    private static String dbUrl = System.getProperty("klausurverwaltung.db.url", DEFAULT_URL);
+    private static int poolGroesse = Integer.getInteger("klausurverwaltung.db.poolGroesse", 4);
+    private static long wartezeitMs = Long.getLong("klausurverwaltung.db.wartezeitMs", 30_000L);
+    private static String synchronous = System.getProperty("klausurverwaltung.db.synchronous", "NORMAL");
+    private static int cacheSize = Integer.getInteger("klausurverwaltung.db.cacheSize", -16_000);
+    private static long mmapSize = Long.getLong("klausurverwaltung.db.mmapSize", 268_435_456L);
+    private static int busyTimeoutMs = Integer.getInteger("klausurverwaltung.db.busyTimeoutMs", 5_000);
+
+    // Pool-Zustand
+    private static final Deque<Connection> leerlauf = new ArrayDeque<>();
+    private static Semaphore genehmigungen = new Semaphore(poolGroesse, true);
+    private static final AtomicInteger aktiv = new AtomicInteger();
+
+    // Statistik
+    private static final AtomicLong ausleihen = new AtomicLong();
+    private static final AtomicLong wartezeitGesamtNanos = new AtomicLong();
+    private static final AtomicLong wartezeitMaxNanos = new AtomicLong();
+    private static final AtomicLong zeitueberschreitungen = new AtomicLong();
+
+    // Write-Behind
+    private static volatile BatchWarteschlange<Schreibauftrag> writeBehind;
+    private static final List<BatchWarteschlange<?>> weitereSchreiber = new CopyOnWriteArrayList<>();
+    private static boolean shutdownHookRegistriert;
+
+    /**
+     * Ein Schreibzugriff auf die Datenbank
+     */
+    @FunctionalInterface
+    public interface SchreibOperation {
+        void ausfuehren(Connection conn) throws SQLException;
+    }
+
     static {
         try {
             // Lade den SQLite Treiber explizit
@@ -15,8 +81,453 @@ public class Database {
             System.err.println("Stelle sicher, dass sqlite-jdbc.jar im Classpath ist.");
         }
     }
-    
+
+    /**
+     * Leiht eine Verbindung aus dem Pool aus. Der Aufrufer muss sie mit
+     * {@code close()} zurückgeben (am besten per try-with-resources).
+     */
     public static Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        Semaphore pool;
+        synchronized (Database.class) {
+            pool = genehmigungen;
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!pool.tryAcquire(wartezeitMs, TimeUnit.MILLISECONDS)) {
+                zeitueberschreitungen.incrementAndGet();
+                throw new SQLException("Keine freie Datenbankverbindung nach " + wartezeitMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Warten auf Datenbankverbindung unterbrochen", e);
+        }
+        erfasseWartezeit(System.nanoTime() - start);
+
+        Connection physisch;
+        try {
+            physisch = naechsteLeerlaufVerbindung();
+            if (physisch == null) {
+                physisch = oeffneVerbindung();
+            }
+        } catch (SQLException | RuntimeException e) {
+            pool.release();
+            throw e;
+        }
+
+        aktiv.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(
+                Database.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new PoolVerbindung(physisch, pool));
+    }
+
+    /**
+     * Führt einen Schreibzugriff aus. Im Write-Behind-Modus wird er nur eingereiht
+     * und später gebündelt geschrieben; Fehler werden mit {@code fehlerText} protokolliert.
+     */
+    public static void schreiben(String fehlerText, SchreibOperation operation) {
+        BatchWarteschlange<Schreibauftrag> warteschlange = writeBehind;
+        if (warteschlange != null) {
+            try {
+                warteschlange.einreihen(new Schreibauftrag(fehlerText, operation));
+                return;
+            } catch (IllegalStateException e) {
+                // Warteschlange wird gerade beendet - synchron schreiben
+            }
+        }
+
+        try (Connection conn = connect()) {
+            operation.ausfuehren(conn);
+        } catch (SQLException e) {
+            System.err.println(fehlerText + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Aktiviert den Write-Behind-Modus mit Standardwerten
+     * (Kapazität 10000, max. 500 Operationen pro Transaktion, 20 ms Sammelintervall)
+     */
+    public static void aktiviereWriteBehind() {
+        aktiviereWriteBehind(10_000, 500, 20);
+    }
+
+    /**
+     * Aktiviert den Write-Behind-Modus. Schreibzugriffe werden in eine begrenzte
+     * Warteschlange gestellt und von einem einzelnen Hintergrund-Thread in
+     * gemeinsamen Transaktionen (Group Commit) geschrieben.
+     */
+    public static synchronized void aktiviereWriteBehind(int kapazitaet, int maxBatchGroesse, long flushIntervallMs) {
+        if (writeBehind != null) {
+            return;
+        }
+        writeBehind = new BatchWarteschlange<>("db-writer", kapazitaet, maxBatchGroesse, flushIntervallMs, 1,
+                Database::schreibeBatch);
+        registriereShutdownHook();
+    }
+
+    /**
+     * Meldet einen eigenen Hintergrund-Schreiber an (z.B. für Prüfungsversuche),
+     * damit {@link #flush()}, {@link #schliessen()} und das Beenden der JVM ihn mit abarbeiten
+     */
+    public static synchronized void registriereSchreiber(BatchWarteschlange<?> schreiber) {
+        weitereSchreiber.add(schreiber);
+        registriereShutdownHook();
+    }
+
+    /**
+     * Meldet einen Hintergrund-Schreiber wieder ab (nachdem sein Besitzer ihn beendet hat)
+     */
+    public static void abmeldenSchreiber(BatchWarteschlange<?> schreiber) {
+        weitereSchreiber.remove(schreiber);
+    }
+
+    private static synchronized void registriereShutdownHook() {
+        if (!shutdownHookRegistriert) {
+            // Auch bei System.exit() keine eingereihten Schreibzugriffe verlieren
+            Runtime.getRuntime().addShutdownHook(new Thread(Database::beendeSchreiber, "db-writer-shutdown"));
+            shutdownHookRegistriert = true;
+        }
+    }
+
+    private static void beendeSchreiber() {
+        deaktiviereWriteBehind();
+        for (BatchWarteschlange<?> schreiber : weitereSchreiber) {
+            schreiber.beenden();
+        }
+        weitereSchreiber.clear();
+    }
+
+    /**
+     * Schreibt alle wartenden Operationen und kehrt zum synchronen Modus zurück
+     */
+    public static void deaktiviereWriteBehind() {
+        BatchWarteschlange<Schreibauftrag> warteschlange;
+        synchronized (Database.class) {
+            warteschlange = writeBehind;
+            writeBehind = null;
+        }
+        if (warteschlange != null) {
+            warteschlange.beenden();
+        }
+    }
+
+    /**
+     * Haltepunkt für Dauerhaftigkeit: wartet, bis alle bisher eingereihten
+     * Schreibzugriffe committet sind
+     */
+    public static void flush() {
+        BatchWarteschlange<Schreibauftrag> warteschlange = writeBehind;
+        if (warteschlange != null) {
+            warteschlange.flush();
+        }
+        for (BatchWarteschlange<?> schreiber : weitereSchreiber) {
+            schreiber.flush();
+        }
+    }
+
+    public static boolean istWriteBehindAktiv() {
+        return writeBehind != null;
+    }
+
+    /**
+     * Kennzahlen der Write-Behind-Warteschlange (null im synchronen Modus)
+     */
+    public static BatchWarteschlange.Statistik getWriteBehindStatistik() {
+        BatchWarteschlange<Schreibauftrag> warteschlange = writeBehind;
+        return warteschlange != null ? warteschlange.getStatistik() : null;
+    }
+
+    /**
+     * @return true, wenn keine Verbindung ausgeliehen ist und keine Schreibzugriffe warten
+     */
+    public static boolean istImLeerlauf() {
+        if (aktiv.get() > 0) {
+            return false;
+        }
+        BatchWarteschlange<Schreibauftrag> warteschlange = writeBehind;
+        if (warteschlange != null && warteschlange.getTiefe() > 0) {
+            return false;
+        }
+        for (BatchWarteschlange<?> schreiber : weitereSchreiber) {
+            if (schreiber.getTiefe() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wartung in Leerlaufphasen: aktualisiert die Planer-Statistiken
+     * ({@code PRAGMA optimize}) und gibt höchstens {@code maxSeiten} freie Seiten
+     * an das Dateisystem zurück ({@code PRAGMA incremental_vacuum}, nur bei
+     * {@code auto_vacuum=INCREMENTAL})
+     *
+     * @return Anzahl der freigegebenen Seiten
+     */
+    public static int wartungAusfuehren(int maxSeiten) throws SQLException {
+        try (Connection conn = connect(); Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA optimize");
+            if (pragmaWert(stmt, "auto_vacuum") != 2) {
+                return 0;
+            }
+            long vorher = pragmaWert(stmt, "freelist_count");
+            if (vorher == 0) {
+                return 0;
+            }
+            // Der Treiber führt die Anweisung nur einen Schritt aus (= eine Seite);
+            // daher seitenweise in einer gemeinsamen Transaktion
+            long seiten = Math.min(vorher, maxSeiten);
+            conn.setAutoCommit(false);
+            for (long i = 0; i < seiten; i++) {
+                // Anweisung jeweils schließen, sonst gilt sie beim Commit als noch aktiv
+                try (Statement schritt = conn.createStatement()) {
+                    schritt.execute("PRAGMA incremental_vacuum(1)");
+                }
+            }
+            conn.commit();
+            return (int) (vorher - pragmaWert(stmt, "freelist_count"));
+        }
+    }
+
+    private static long pragmaWert(Statement stmt, String pragma) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static void schreibeBatch(List<Schreibauftrag> batch) throws SQLException {
+        try (Connection conn = connect()) {
+            conn.setAutoCommit(false);
+            for (Schreibauftrag auftrag : batch) {
+                try {
+                    auftrag.operation.ausfuehren(conn);
+                } catch (SQLException e) {
+                    // SQLite rollt nur die fehlgeschlagene Anweisung zurück
+                    System.err.println(auftrag.fehlerText + ": " + e.getMessage());
+                }
+            }
+            conn.commit();
+        }
+    }
+
+    /**
+     * Setzt eine andere Datenbank-URL (z.B. für Lasttests mit temporärer Datei)
+     * und leert den Pool. Noch ausgeliehene Verbindungen zur alten Datenbank
+     * werden bei der Rückgabe geschlossen.
+     */
+    public static synchronized void setUrl(String url) {
+        dbUrl = url;
+        genehmigungen = new Semaphore(poolGroesse, true);
+        schliesseLeerlaufVerbindungen();
+    }
+
+    public static synchronized String getUrl() {
+        return dbUrl;
+    }
+
+    /**
+     * Ändert die maximale Anzahl gleichzeitig ausgeliehener Verbindungen.
+     * Bereits ausgeliehene Verbindungen bleiben gültig.
+     */
+    public static synchronized void setPoolGroesse(int groesse) {
+        if (groesse < 1) {
+            throw new IllegalArgumentException("Poolgröße muss mindestens 1 sein!");
+        }
+        poolGroesse = groesse;
+        genehmigungen = new Semaphore(groesse, true);
+        schliesseLeerlaufVerbindungen();
+    }
+
+    /**
+     * Schreibt ausstehende Write-Behind-Operationen und schließt alle
+     * Verbindungen im Leerlauf (z.B. beim Beenden der Anwendung)
+     */
+    public static void schliessen() {
+        beendeSchreiber();
+        synchronized (Database.class) {
+            schliesseLeerlaufVerbindungen();
+        }
+    }
+
+    /**
+     * Gibt aktuelle Kennzahlen des Verbindungspools zurück
+     */
+    public static PoolStatistik getPoolStatistik() {
+        int leer;
+        synchronized (leerlauf) {
+            leer = leerlauf.size();
+        }
+        long anzahl = ausleihen.get();
+        double durchschnittMs = anzahl == 0 ? 0.0 : wartezeitGesamtNanos.get() / (double) anzahl / 1_000_000.0;
+        return new PoolStatistik(
+                aktiv.get(),
+                leer,
+                poolGroesse,
+                anzahl,
+                durchschnittMs,
+                wartezeitMaxNanos.get() / 1_000_000.0,
+                zeitueberschreitungen.get()
+        );
+    }
+
+    private static Connection naechsteLeerlaufVerbindung() {
+        synchronized (leerlauf) {
+            return leerlauf.pollFirst();
+        }
+    }
+
+    private static Connection oeffneVerbindung() throws SQLException {
+        Connection conn = DriverManager.getConnection(getUrl());
+        try (Statement stmt = conn.createStatement()) {
+            // Wirkt nur bei neuen Datenbankdateien (vor der ersten Tabelle);
+            // ermöglicht Database#wartungAusfuehren das schrittweise Freigeben von Seiten
+            stmt.execute("PRAGMA auto_vacuum=INCREMENTAL");
+            stmt.execute("PRAGMA journal_mode=WAL");
+            stmt.execute("PRAGMA synchronous=" + synchronous);
+            stmt.execute("PRAGMA cache_size=" + cacheSize);
+            stmt.execute("PRAGMA mmap_size=" + mmapSize);
+            stmt.execute("PRAGMA busy_timeout=" + busyTimeoutMs);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
+    private static void zurueckgeben(Connection physisch, Semaphore pool) {
+        aktiv.decrementAndGet();
+        boolean wiederverwendbar;
+        try {
+            if (!physisch.getAutoCommit()) {
+                physisch.rollback();
+                physisch.setAutoCommit(true);
+            }
+            wiederverwendbar = !physisch.isClosed();
+        } catch (SQLException e) {
+            wiederverwendbar = false;
+        }
+
+        // Verbindungen aus einem ersetzten Pool (setPoolGroesse/setUrl) nicht wiederverwenden
+        synchronized (Database.class) {
+            if (pool != genehmigungen) {
+                wiederverwendbar = false;
+            }
+        }
+
+        if (wiederverwendbar) {
+            synchronized (leerlauf) {
+                leerlauf.addFirst(physisch);
+            }
+        } else {
+            schliesseStill(physisch);
+        }
+        pool.release();
+    }
+
+    private static void schliesseLeerlaufVerbindungen() {
+        synchronized (leerlauf) {
+            while (!leerlauf.isEmpty()) {
+                schliesseStill(leerlauf.pollFirst());
+            }
+        }
+    }
+
+    private static void schliesseStill(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Fehler beim Schließen der Verbindung: " + e.getMessage());
+        }
+    }
+
+    private static void erfasseWartezeit(long nanos) {
+        ausleihen.incrementAndGet();
+        wartezeitGesamtNanos.addAndGet(nanos);
+        wartezeitMaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Leitet alle Aufrufe an die physische Verbindung weiter,
+     * close() gibt sie stattdessen an den Pool zurück.
+     */
+    private static class PoolVerbindung implements InvocationHandler {
+        private final Connection physisch;
+        private final Semaphore pool;
+        private boolean geschlossen;
+
+        PoolVerbindung(Connection physisch, Semaphore pool) {
+            this.physisch = physisch;
+            this.pool = pool;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!geschlossen) {
+                        geschlossen = true;
+                        zurueckgeben(physisch, pool);
+                    }
+                    return null;
+                case "isClosed":
+                    return geschlossen || physisch.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PoolVerbindung[" + physisch + "]";
+                default:
+                    if (geschlossen) {
+                        throw new SQLException("Verbindung wurde bereits an den Pool zurückgegeben");
+                    }
+                    try {
+                        return method.invoke(physisch, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    private static class Schreibauftrag {
+        final String fehlerText;
+        final SchreibOperation operation;
+
+        Schreibauftrag(String fehlerText, SchreibOperation operation) {
+            this.fehlerText = fehlerText;
+            this.operation = operation;
+        }
+    }
+
+    /**
+     * Momentaufnahme der Pool-Kennzahlen
+     */
+    public static class PoolStatistik {
+        public final int aktiv;
+        public final int leerlauf;
+        public final int maxGroesse;
+        public final long ausleihen;
+        public final double durchschnittlicheWartezeitMs;
+        public final double maxWartezeitMs;
+        public final long zeitueberschreitungen;
+
+        public PoolStatistik(int aktiv, int leerlauf, int maxGroesse, long ausleihen,
+                             double durchschnittlicheWartezeitMs, double maxWartezeitMs, long zeitueberschreitungen) {
+            this.aktiv = aktiv;
+            this.leerlauf = leerlauf;
+            this.maxGroesse = maxGroesse;
+            this.ausleihen = ausleihen;
+            this.durchschnittlicheWartezeitMs = durchschnittlicheWartezeitMs;
+            this.maxWartezeitMs = maxWartezeitMs;
+            this.zeitueberschreitungen = zeitueberschreitungen;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Aktiv: %d | Leerlauf: %d | Max: %d | Ausleihen: %d | Ø-Wartezeit: %.3f ms | Max. Wartezeit: %.3f ms | Timeouts: %d",
+                    aktiv, leerlauf, maxGroesse, ausleihen, durchschnittlicheWartezeitMs, maxWartezeitMs, zeitueberschreitungen);
+        }
     }
-}
\ No newline at end of file
+}
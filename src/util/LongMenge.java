@@ -0,0 +1,96 @@
+package util;
+
+/**
+ * Kompakte Menge von long-Werten mit offener Adressierung (lineares Sondieren).
+ *
+ * Belegt etwa 16 Byte pro Eintrag (Füllgrad höchstens 1/2), ein
+ * {@code HashSet<Long>} dagegen rund 50 Byte. Einträge können nicht einzeln
+ * entfernt werden; die Menge wird als Ganzes verworfen. Nicht threadsicher.
+ */
+public class LongMenge {
+    private static final int MIN_KAPAZITAET = 16;
+
+    // 0 markiert einen freien Platz; der Wert 0 selbst wird separat gemerkt
+    private long[] werte;
+    private int anzahl;
+    private boolean enthaeltNull;
+
+    public LongMenge() {
+        this(MIN_KAPAZITAET / 2);
+    }
+
+    public LongMenge(int erwarteteGroesse) {
+        int kapazitaet = MIN_KAPAZITAET;
+        while (kapazitaet < erwarteteGroesse * 2) {
+            kapazitaet <<= 1;
+        }
+        this.werte = new long[kapazitaet];
+    }
+
+    /**
+     * @return true, wenn der Wert neu war
+     */
+    public boolean hinzufuegen(long wert) {
+        if (wert == 0) {
+            boolean neu = !enthaeltNull;
+            if (neu) {
+                enthaeltNull = true;
+                anzahl++;
+            }
+            return neu;
+        }
+        int maske = werte.length - 1;
+        for (int i = streuen(wert) & maske; ; i = (i + 1) & maske) {
+            if (werte[i] == wert) {
+                return false;
+            }
+            if (werte[i] == 0) {
+                werte[i] = wert;
+                anzahl++;
+                if (anzahl * 2 > werte.length) {
+                    vergroessern();
+                }
+                return true;
+            }
+        }
+    }
+
+    public boolean enthaelt(long wert) {
+        if (wert == 0) {
+            return enthaeltNull;
+        }
+        int maske = werte.length - 1;
+        for (int i = streuen(wert) & maske; ; i = (i + 1) & maske) {
+            if (werte[i] == wert) {
+                return true;
+            }
+            if (werte[i] == 0) {
+                return false;
+            }
+        }
+    }
+
+    public int getAnzahl() {
+        return anzahl;
+    }
+
+    private void vergroessern() {
+        long[] alt = werte;
+        werte = new long[alt.length * 2];
+        int maske = werte.length - 1;
+        for (long wert : alt) {
+            if (wert != 0) {
+                int i = streuen(wert) & maske;
+                while (werte[i] != 0) {
+                    i = (i + 1) & maske;
+                }
+                werte[i] = wert;
+            }
+        }
+    }
+
+    private static int streuen(long wert) {
+        long h = wert * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
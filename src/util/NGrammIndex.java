@@ -0,0 +1,120 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Invertierter Index über alle Teilzeichenketten der Länge 1 bis 3 (N-Gramme)
+ * für die Teilstring-Suche ohne Beachtung der Groß-/Kleinschreibung.
+ *
+ * Suchtexte mit bis zu 3 Zeichen werden direkt aus dem Index beantwortet.
+ * Bei längeren Suchtexten liefert das seltenste Trigramm die Kandidaten,
+ * die anschließend exakt geprüft werden.
+ */
+public class NGrammIndex<T> {
+    private static final int MAX_N = 3;
+
+    private final Map<String, Set<T>> postings = new HashMap<>();
+    private final Map<T, String[]> indizierteTexte = new HashMap<>();
+
+    /**
+     * Indiziert ein Element unter den angegebenen Texten (ersetzt vorherige Texte)
+     */
+    public void hinzufuegen(T element, String... texte) {
+        entfernen(element);
+
+        String[] normalisiert = new String[texte.length];
+        for (int i = 0; i < texte.length; i++) {
+            normalisiert[i] = texte[i] == null ? "" : texte[i].toLowerCase();
+        }
+        indizierteTexte.put(element, normalisiert);
+
+        for (String gramm : gramme(normalisiert)) {
+            postings.computeIfAbsent(gramm, k -> new HashSet<>()).add(element);
+        }
+    }
+
+    /**
+     * Entfernt ein Element aus dem Index
+     */
+    public void entfernen(T element) {
+        String[] texte = indizierteTexte.remove(element);
+        if (texte == null) {
+            return;
+        }
+
+        for (String gramm : gramme(texte)) {
+            Set<T> elemente = postings.get(gramm);
+            if (elemente != null) {
+                elemente.remove(element);
+                if (elemente.isEmpty()) {
+                    postings.remove(gramm);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gibt alle Elemente zurück, bei denen mindestens ein indizierter Text
+     * den Suchtext enthält (unsortiert)
+     */
+    public List<T> suchen(String suchtext) {
+        String anfrage = suchtext.toLowerCase();
+        if (anfrage.isEmpty()) {
+            return new ArrayList<>(indizierteTexte.keySet());
+        }
+
+        if (anfrage.length() <= MAX_N) {
+            Set<T> treffer = postings.get(anfrage);
+            return treffer == null ? new ArrayList<>() : new ArrayList<>(treffer);
+        }
+
+        // Kleinste Postingliste unter den Trigrammen der Anfrage bestimmen
+        Set<T> kandidaten = null;
+        for (int i = 0; i + MAX_N <= anfrage.length(); i++) {
+            Set<T> elemente = postings.get(anfrage.substring(i, i + MAX_N));
+            if (elemente == null) {
+                return new ArrayList<>();
+            }
+            if (kandidaten == null || elemente.size() < kandidaten.size()) {
+                kandidaten = elemente;
+            }
+        }
+
+        List<T> treffer = new ArrayList<>();
+        for (T kandidat : kandidaten) {
+            for (String text : indizierteTexte.get(kandidat)) {
+                if (text.contains(anfrage)) {
+                    treffer.add(kandidat);
+                    break;
+                }
+            }
+        }
+        return treffer;
+    }
+
+    public int getAnzahlElemente() {
+        return indizierteTexte.size();
+    }
+
+    public Set<T> getElemente() {
+        return Collections.unmodifiableSet(indizierteTexte.keySet());
+    }
+
+    private static Set<String> gramme(String[] texte) {
+        Set<String> gramme = new HashSet<>();
+        for (String text : texte) {
+            for (int start = 0; start < text.length(); start++) {
+                for (int n = 1; n <= MAX_N && start + n <= text.length(); n++) {
+                    gramme.add(text.substring(start, start + n));
+                }
+            }
+        }
+        return gramme;
+    }
+}
@@ -0,0 +1,239 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Quantil-Sketch nach dem KLL-Verfahren (Karnin, Lang, Liberty).
+ *
+ * Speichert einen Datenstrom in O(k · log(n/k)) Werten und beantwortet
+ * Quantilabfragen (Median, P10, P90, ...) mit einem Rangfehler von etwa 1,7/k.
+ * Werte liegen in Ebenen; ein Wert auf Ebene h steht für 2^h Originalwerte.
+ * Läuft eine Ebene über, wird sie sortiert und jeder zweite Wert (zufällig
+ * gerade oder ungerade Positionen) in die nächste Ebene übernommen.
+ *
+ * Sketches lassen sich mit {@link #zusammenfuehren(QuantilSketch)} verlustarm
+ * vereinigen, z.B. mehrere Klausuren zu einem Fachbereich. Nicht threadsicher.
+ */
+public class QuantilSketch {
+    public static final int STANDARD_K = 200;
+    private static final double SCHRUMPFFAKTOR = 2.0 / 3.0;
+    private static final int MIN_EBENENKAPAZITAET = 8;
+
+    private final int k;
+    private final List<Ebene> ebenen = new ArrayList<>();
+    private final Random zufall;
+    private long anzahl;
+    private int gespeichert;
+    // Summe der Ebenenkapazitäten; ändert sich nur, wenn eine Ebene hinzukommt
+    private int gesamtKapazitaet;
+    private double minimum = Double.NaN;
+    private double maximum = Double.NaN;
+
+    public QuantilSketch() {
+        this(STANDARD_K);
+    }
+
+    public QuantilSketch(int k) {
+        if (k < MIN_EBENENKAPAZITAET) {
+            throw new IllegalArgumentException("k muss mindestens " + MIN_EBENENKAPAZITAET + " sein!");
+        }
+        this.k = k;
+        this.zufall = new Random();
+        neueEbene();
+    }
+
+    /**
+     * Nimmt einen Wert auf
+     */
+    public void hinzufuegen(double wert) {
+        if (Double.isNaN(wert)) {
+            return;
+        }
+        ebenen.get(0).hinzufuegen(wert);
+        gespeichert++;
+        anzahl++;
+        minimum = anzahl == 1 ? wert : Math.min(minimum, wert);
+        maximum = anzahl == 1 ? wert : Math.max(maximum, wert);
+        verdichten();
+    }
+
+    /**
+     * Übernimmt alle Werte eines anderen Sketches (der andere bleibt unverändert)
+     *
+     * @return dieser Sketch
+     */
+    public QuantilSketch zusammenfuehren(QuantilSketch anderer) {
+        if (anderer == null || anderer.anzahl == 0) {
+            return this;
+        }
+        if (anderer == this) {
+            // Die Ebenen würden beim Durchlaufen selbst wachsen: von einer Kopie übernehmen
+            anderer = kopie();
+        }
+        while (ebenen.size() < anderer.ebenen.size()) {
+            neueEbene();
+        }
+        for (int h = 0; h < anderer.ebenen.size(); h++) {
+            Ebene quelle = anderer.ebenen.get(h);
+            Ebene ziel = ebenen.get(h);
+            for (int i = 0; i < quelle.anzahl; i++) {
+                ziel.hinzufuegen(quelle.werte[i]);
+            }
+            gespeichert += quelle.anzahl;
+        }
+        minimum = anzahl == 0 ? anderer.minimum : Math.min(minimum, anderer.minimum);
+        maximum = anzahl == 0 ? anderer.maximum : Math.max(maximum, anderer.maximum);
+        anzahl += anderer.anzahl;
+        verdichten();
+        return this;
+    }
+
+    /**
+     * Gibt eine unabhängige Kopie zurück
+     */
+    public QuantilSketch kopie() {
+        return new QuantilSketch(k).zusammenfuehren(this);
+    }
+
+    /**
+     * Schätzt das q-Quantil (0 &lt;= q &lt;= 1); NaN, wenn der Sketch leer ist
+     */
+    public double quantil(double q) {
+        if (q < 0.0 || q > 1.0) {
+            throw new IllegalArgumentException("Quantil muss zwischen 0 und 1 liegen: " + q);
+        }
+        if (anzahl == 0) {
+            return Double.NaN;
+        }
+        if (q == 0.0) {
+            return minimum;
+        }
+        if (q == 1.0) {
+            return maximum;
+        }
+
+        double[] werte = new double[gespeichert];
+        long[] gewichte = new long[gespeichert];
+        Integer[] reihenfolge = new Integer[gespeichert];
+        int position = 0;
+        for (int h = 0; h < ebenen.size(); h++) {
+            Ebene ebene = ebenen.get(h);
+            for (int i = 0; i < ebene.anzahl; i++) {
+                werte[position] = ebene.werte[i];
+                gewichte[position] = 1L << h;
+                reihenfolge[position] = position;
+                position++;
+            }
+        }
+        Arrays.sort(reihenfolge, (a, b) -> Double.compare(werte[a], werte[b]));
+
+        // Gesamtgewicht entspricht nach jeder Verdichtung nur näherungsweise n
+        long gesamtGewicht = 0;
+        for (long gewicht : gewichte) {
+            gesamtGewicht += gewicht;
+        }
+        double zielRang = q * gesamtGewicht;
+        long kumuliert = 0;
+        for (int index : reihenfolge) {
+            kumuliert += gewichte[index];
+            if (kumuliert >= zielRang) {
+                return werte[index];
+            }
+        }
+        return maximum;
+    }
+
+    public double getMedian() {
+        return quantil(0.5);
+    }
+
+    public long getAnzahl() {
+        return anzahl;
+    }
+
+    public double getMinimum() {
+        return minimum;
+    }
+
+    public double getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * Anzahl der tatsächlich gespeicherten Werte (Speicherbedarf)
+     */
+    public int getAnzahlGespeichert() {
+        return gespeichert;
+    }
+
+    private int kapazitaet(int ebene) {
+        int tiefe = ebenen.size() - ebene - 1;
+        return Math.max(MIN_EBENENKAPAZITAET, (int) Math.ceil(k * Math.pow(SCHRUMPFFAKTOR, tiefe)));
+    }
+
+    private void neueEbene() {
+        ebenen.add(new Ebene());
+        gesamtKapazitaet = 0;
+        for (int h = 0; h < ebenen.size(); h++) {
+            gesamtKapazitaet += kapazitaet(h);
+        }
+    }
+
+    private void verdichten() {
+        while (gespeichert > gesamtKapazitaet) {
+            for (int h = 0; h < ebenen.size(); h++) {
+                if (ebenen.get(h).anzahl >= kapazitaet(h)) {
+                    verdichteEbene(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void verdichteEbene(int h) {
+        if (h + 1 == ebenen.size()) {
+            neueEbene();
+        }
+        Ebene ebene = ebenen.get(h);
+        Ebene naechste = ebenen.get(h + 1);
+        Arrays.sort(ebene.werte, 0, ebene.anzahl);
+
+        // Bei ungerader Anzahl bleibt der kleinste Wert auf dieser Ebene
+        int start = ebene.anzahl % 2;
+        int versatz = zufall.nextBoolean() ? 1 : 0;
+        int befoerdert = 0;
+        for (int i = start + versatz; i < ebene.anzahl; i += 2) {
+            naechste.hinzufuegen(ebene.werte[i]);
+            befoerdert++;
+        }
+        gespeichert -= ebene.anzahl - start - befoerdert;
+        ebene.anzahl = start;
+    }
+
+    @Override
+    public String toString() {
+        if (anzahl == 0) {
+            return "Keine Werte";
+        }
+        return String.format("n=%d | P10: %.2f | Median: %.2f | P90: %.2f",
+                anzahl, quantil(0.1), getMedian(), quantil(0.9));
+    }
+
+    /**
+     * Eine Ebene des Sketches mit wachsendem Array
+     */
+    private static final class Ebene {
+        private double[] werte = new double[MIN_EBENENKAPAZITAET];
+        private int anzahl;
+
+        void hinzufuegen(double wert) {
+            if (anzahl == werte.length) {
+                werte = Arrays.copyOf(werte, werte.length * 2);
+            }
+            werte[anzahl++] = wert;
+        }
+    }
+}
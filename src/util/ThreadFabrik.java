@@ -0,0 +1,74 @@
+package util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Erzeugt Executor für viele kurze, blockierende Aufgaben.
+ *
+ * Ab Java 21 wird pro Aufgabe ein virtueller Thread gestartet. Auf älteren
+ * Laufzeiten (das Projekt wird mit Java 17 übersetzt) wird auf einen festen
+ * Pool von Plattform-Threads ausgewichen. Der Zugriff erfolgt per Reflection,
+ * damit der Code auf beiden Versionen übersetzbar bleibt.
+ */
+public final class ThreadFabrik {
+    private static final Method VIRTUELL_PRO_AUFGABE = sucheVirtuellenExecutor();
+
+    private ThreadFabrik() {
+    }
+
+    /**
+     * @return true, wenn die Laufzeit virtuelle Threads unterstützt
+     */
+    public static boolean virtuelleThreadsVerfuegbar() {
+        return VIRTUELL_PRO_AUFGABE != null;
+    }
+
+    /**
+     * Executor mit einem virtuellen Thread pro Aufgabe oder, falls nicht
+     * verfügbar, einem festen Pool aus {@code ersatzGroesse} Daemon-Threads
+     */
+    public static ExecutorService proAufgabe(String name, int ersatzGroesse) {
+        if (VIRTUELL_PRO_AUFGABE != null) {
+            try {
+                return (ExecutorService) VIRTUELL_PRO_AUFGABE.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Virtuelle Threads nicht nutzbar, verwende Plattform-Threads: " + e.getMessage());
+            }
+        }
+        return Executors.newFixedThreadPool(ersatzGroesse, daemonThreads(name));
+    }
+
+    /**
+     * Executor für zeitgesteuerte Aufgaben auf {@code anzahlThreads} Daemon-Threads.
+     * Beim Herunterfahren werden noch nicht fällige Aufgaben verworfen.
+     */
+    public static ScheduledExecutorService geplant(String name, int anzahlThreads) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(anzahlThreads, daemonThreads(name));
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger zaehler = new AtomicInteger();
+        return aufgabe -> {
+            Thread thread = new Thread(aufgabe, name + "-" + zaehler.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static Method sucheVirtuellenExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
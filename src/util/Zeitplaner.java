@@ -0,0 +1,301 @@
+package util;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Führt wiederkehrende Hintergrundaufgaben auf einem {@link ScheduledExecutorService} aus.
+ *
+ * Jede Aufgabe plant sich nach ihrem Lauf selbst neu ein (feste Pause statt
+ * fester Rate); auf jede Verzögerung wird ein zufälliger Versatz von bis zu
+ * {@code maxJitterMs} addiert, damit Aufgaben mit gleichem Intervall nicht
+ * dauerhaft gleichzeitig laufen. Läuft eine Aufgabe noch, wird ein weiterer
+ * Start (z.B. über {@link #jetztAusfuehren(String)}) übersprungen statt parallel
+ * ausgeführt. Aufgaben mit Bedingung werden verschoben, solange sie nicht erfüllt ist.
+ */
+public class Zeitplaner {
+    private final ScheduledExecutorService executor;
+    private final Map<String, Aufgabe> aufgaben = new LinkedHashMap<>();
+    private volatile boolean beendet;
+
+    /**
+     * Die Arbeit einer Aufgabe; Ausnahmen werden protokolliert und gezählt
+     */
+    @FunctionalInterface
+    public interface Arbeit {
+        void ausfuehren() throws Exception;
+    }
+
+    public Zeitplaner(String name, int anzahlThreads) {
+        this.executor = ThreadFabrik.geplant(name, anzahlThreads);
+    }
+
+    /**
+     * Plant eine Aufgabe, die nach jedem Lauf {@code intervall} (plus Jitter) pausiert
+     */
+    public void periodisch(String name, Duration ersteVerzoegerung, Duration intervall, long maxJitterMs, Arbeit arbeit) {
+        periodisch(name, ersteVerzoegerung, intervall, maxJitterMs, null, null, arbeit);
+    }
+
+    /**
+     * Plant eine periodische Aufgabe, die nur läuft, wenn {@code bedingung} erfüllt ist;
+     * andernfalls wird sie um {@code wiederholung} verschoben
+     */
+    public void periodisch(String name, Duration ersteVerzoegerung, Duration intervall, long maxJitterMs,
+                           BooleanSupplier bedingung, Duration wiederholung, Arbeit arbeit) {
+        if (intervall.isNegative() || intervall.isZero()) {
+            throw new IllegalArgumentException("Intervall muss positiv sein!");
+        }
+        Aufgabe aufgabe = new Aufgabe(name, arbeit, maxJitterMs, bedingung, wiederholung) {
+            @Override
+            long naechsteVerzoegerungMs() {
+                return intervall.toMillis();
+            }
+        };
+        registrieren(aufgabe, ersteVerzoegerung.toMillis());
+    }
+
+    /**
+     * Plant eine Aufgabe täglich zur angegebenen Uhrzeit (plus Jitter)
+     */
+    public void taeglich(String name, LocalTime uhrzeit, long maxJitterMs, Arbeit arbeit) {
+        Aufgabe aufgabe = new Aufgabe(name, arbeit, maxJitterMs, null, null) {
+            @Override
+            long naechsteVerzoegerungMs() {
+                LocalDateTime jetzt = LocalDateTime.now();
+                LocalDateTime naechste = jetzt.toLocalDate().atTime(uhrzeit);
+                if (!naechste.isAfter(jetzt)) {
+                    naechste = naechste.plusDays(1);
+                }
+                return Duration.between(jetzt, naechste).toMillis();
+            }
+        };
+        registrieren(aufgabe, aufgabe.naechsteVerzoegerungMs());
+    }
+
+    /**
+     * Startet eine Aufgabe sofort im Hintergrund (z.B. Nachholen beim Programmstart).
+     * Läuft sie bereits, wird der Start übersprungen; der reguläre Plan bleibt unverändert.
+     */
+    public void jetztAusfuehren(String name) {
+        Aufgabe aufgabe;
+        synchronized (aufgaben) {
+            aufgabe = aufgaben.get(name);
+        }
+        if (aufgabe == null) {
+            throw new IllegalArgumentException("Unbekannte Aufgabe: " + name);
+        }
+        try {
+            executor.execute(() -> aufgabe.ausfuehren(false));
+        } catch (RejectedExecutionException e) {
+            // Zeitplaner bereits beendet
+        }
+    }
+
+    /**
+     * Verwirft alle noch nicht fälligen Läufe und wartet höchstens
+     * {@code maxWartezeitMs}, bis laufende Aufgaben beendet sind
+     */
+    public void beenden(long maxWartezeitMs) {
+        beendet = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(maxWartezeitMs, TimeUnit.MILLISECONDS)) {
+                System.err.println("⚠️ Hintergrundaufgaben nach " + maxWartezeitMs + " ms noch aktiv - breche ab");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public List<AufgabenStatistik> getStatistik() {
+        List<AufgabenStatistik> statistik = new ArrayList<>();
+        synchronized (aufgaben) {
+            for (Aufgabe aufgabe : aufgaben.values()) {
+                statistik.add(aufgabe.statistik());
+            }
+        }
+        return statistik;
+    }
+
+    private void registrieren(Aufgabe aufgabe, long verzoegerungMs) {
+        synchronized (aufgaben) {
+            if (aufgaben.containsKey(aufgabe.name)) {
+                throw new IllegalArgumentException("Aufgabe bereits geplant: " + aufgabe.name);
+            }
+            aufgaben.put(aufgabe.name, aufgabe);
+        }
+        aufgabe.einplanen(verzoegerungMs);
+    }
+
+    /**
+     * Eine geplante Aufgabe mit Überlappungsschutz und Laufzeitkennzahlen
+     */
+    private abstract class Aufgabe {
+        final String name;
+        final Arbeit arbeit;
+        final long maxJitterMs;
+        final BooleanSupplier bedingung;
+        final Duration wiederholung;
+        final AtomicBoolean laeuft = new AtomicBoolean();
+
+        // Kennzahlen, geschützt durch this
+        long ausfuehrungen;
+        long fehler;
+        long uebersprungen;
+        long verschoben;
+        long letzteDauerMs;
+        long maxDauerMs;
+        long gesamtDauerMs;
+        LocalDateTime letzterStart;
+        LocalDateTime naechsterStart;
+
+        Aufgabe(String name, Arbeit arbeit, long maxJitterMs, BooleanSupplier bedingung, Duration wiederholung) {
+            this.name = name;
+            this.arbeit = arbeit;
+            this.maxJitterMs = maxJitterMs;
+            this.bedingung = bedingung;
+            this.wiederholung = wiederholung;
+        }
+
+        abstract long naechsteVerzoegerungMs();
+
+        void einplanen(long verzoegerungMs) {
+            if (beendet) {
+                return;
+            }
+            long jitter = maxJitterMs > 0 ? ThreadLocalRandom.current().nextLong(maxJitterMs + 1) : 0;
+            long gesamt = Math.max(0, verzoegerungMs) + jitter;
+            synchronized (this) {
+                naechsterStart = LocalDateTime.now().plus(Duration.ofMillis(gesamt));
+            }
+            try {
+                executor.schedule(() -> ausfuehren(true), gesamt, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Zeitplaner wird gerade beendet
+            }
+        }
+
+        void ausfuehren(boolean geplant) {
+            // Neu eingeplant wird immer, auch wenn Bedingung oder Aufgabe einen Error werfen
+            boolean verschieben = false;
+            try {
+                if (bedingung != null && !bedingung.getAsBoolean()) {
+                    synchronized (this) {
+                        verschoben++;
+                    }
+                    verschieben = true;
+                    return;
+                }
+                if (!laeuft.compareAndSet(false, true)) {
+                    synchronized (this) {
+                        uebersprungen++;
+                    }
+                    return;
+                }
+                messen();
+            } catch (Throwable t) {
+                synchronized (this) {
+                    fehler++;
+                }
+                melden(t);
+            } finally {
+                if (geplant) {
+                    einplanen(verschieben ? wiederholung.toMillis() : naechsteVerzoegerungMs());
+                }
+            }
+        }
+
+        void messen() {
+            LocalDateTime start = LocalDateTime.now();
+            long startNanos = System.nanoTime();
+            boolean fehlgeschlagen = false;
+            try {
+                arbeit.ausfuehren();
+            } catch (Throwable t) {
+                fehlgeschlagen = true;
+                melden(t);
+            } finally {
+                long dauerMs = (System.nanoTime() - startNanos) / 1_000_000;
+                synchronized (this) {
+                    ausfuehrungen++;
+                    if (fehlgeschlagen) {
+                        fehler++;
+                    }
+                    letzterStart = start;
+                    letzteDauerMs = dauerMs;
+                    maxDauerMs = Math.max(maxDauerMs, dauerMs);
+                    gesamtDauerMs += dauerMs;
+                }
+                laeuft.set(false);
+            }
+        }
+
+        void melden(Throwable t) {
+            // Errors wie StackOverflowError haben oft keine Meldung
+            String grund = t.getMessage() != null ? t.getMessage() : t.toString();
+            System.err.println("❌ Hintergrundaufgabe '" + name + "' fehlgeschlagen: " + grund);
+        }
+
+        synchronized AufgabenStatistik statistik() {
+            double durchschnittMs = ausfuehrungen == 0 ? 0.0 : (double) gesamtDauerMs / ausfuehrungen;
+            return new AufgabenStatistik(name, laeuft.get(), ausfuehrungen, fehler, uebersprungen, verschoben,
+                    letzteDauerMs, durchschnittMs, maxDauerMs, letzterStart, naechsterStart);
+        }
+    }
+
+    /**
+     * Momentaufnahme der Kennzahlen einer Aufgabe
+     */
+    public static class AufgabenStatistik {
+        public final String name;
+        public final boolean laeuft;
+        public final long ausfuehrungen;
+        public final long fehler;
+        public final long uebersprungen;
+        public final long verschoben;
+        public final long letzteDauerMs;
+        public final double durchschnittlicheDauerMs;
+        public final long maxDauerMs;
+        public final LocalDateTime letzterStart;
+        public final LocalDateTime naechsterStart;
+
+        public AufgabenStatistik(String name, boolean laeuft, long ausfuehrungen, long fehler, long uebersprungen,
+                                 long verschoben, long letzteDauerMs, double durchschnittlicheDauerMs, long maxDauerMs,
+                                 LocalDateTime letzterStart, LocalDateTime naechsterStart) {
+            this.name = name;
+            this.laeuft = laeuft;
+            this.ausfuehrungen = ausfuehrungen;
+            this.fehler = fehler;
+            this.uebersprungen = uebersprungen;
+            this.verschoben = verschoben;
+            this.letzteDauerMs = letzteDauerMs;
+            this.durchschnittlicheDauerMs = durchschnittlicheDauerMs;
+            this.maxDauerMs = maxDauerMs;
+            this.letzterStart = letzterStart;
+            this.naechsterStart = naechsterStart;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s%s: %d Läufe | %d Fehler | %d übersprungen | %d verschoben | Dauer zuletzt %d ms, Ø %.1f ms, max %d ms | zuletzt %s | nächster %s",
+                    name, laeuft ? " (läuft)" : "", ausfuehrungen, fehler, uebersprungen, verschoben,
+                    letzteDauerMs, durchschnittlicheDauerMs, maxDauerMs,
+                    letzterStart != null ? letzterStart.withNano(0) : "-",
+                    naechsterStart != null ? naechsterStart.withNano(0) : "-");
+        }
+    }
+}
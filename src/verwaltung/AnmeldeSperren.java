@@ -0,0 +1,99 @@
+package verwaltung;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gestreifte Sperren für Klausuranmeldungen.
+ *
+ * Eine Anmeldung sperrt den Streifen des Studenten und den Streifen der Klausur,
+ * damit Konfliktprüfung, Platzvergabe und Eintrag in beide Listen atomar sind.
+ * Anmeldungen verschiedener Studenten zu verschiedenen Klausuren laufen parallel.
+ * Die beiden Streifen werden immer in aufsteigender Reihenfolge gesperrt,
+ * dadurch sind Verklemmungen ausgeschlossen.
+ */
+public class AnmeldeSperren {
+    public static final int STANDARD_STREIFEN = 64;
+
+    private final ReentrantLock[] streifen;
+
+    public AnmeldeSperren() {
+        this(STANDARD_STREIFEN);
+    }
+
+    public AnmeldeSperren(int anzahlStreifen) {
+        if (anzahlStreifen < 1) {
+            throw new IllegalArgumentException("Anzahl der Streifen muss mindestens 1 sein!");
+        }
+        // Auf Zweierpotenz runden, damit der Index per Bitmaske bestimmt werden kann
+        int groesse = Integer.highestOneBit(anzahlStreifen);
+        if (groesse < anzahlStreifen) {
+            groesse <<= 1;
+        }
+        this.streifen = new ReentrantLock[groesse];
+        for (int i = 0; i < groesse; i++) {
+            streifen[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Sperrt die Streifen für das Paar (Student, Klausur). Die zurückgegebene
+     * Sperre muss per try-with-resources wieder freigegeben werden.
+     */
+    public Sperre sperren(String matrikelnummer, String klausurId) {
+        int a = index(matrikelnummer);
+        int b = index(klausurId);
+        ReentrantLock erste = streifen[Math.min(a, b)];
+        ReentrantLock zweite = a == b ? null : streifen[Math.max(a, b)];
+
+        erste.lock();
+        if (zweite != null) {
+            try {
+                zweite.lock();
+            } catch (RuntimeException | Error e) {
+                erste.unlock();
+                throw e;
+            }
+        }
+        return new Sperre(erste, zweite);
+    }
+
+    /**
+     * Sperrt nur den Streifen des Studenten und schließt damit alle Anmeldungen
+     * dieses Studenten aus (z.B. beim Löschen). Freigabe per {@link Sperre#close()}.
+     */
+    public Sperre sperrenStudent(String matrikelnummer) {
+        ReentrantLock sperre = streifen[index(matrikelnummer)];
+        sperre.lock();
+        return new Sperre(sperre, null);
+    }
+
+    public int getAnzahlStreifen() {
+        return streifen.length;
+    }
+
+    private int index(String schluessel) {
+        int h = schluessel.hashCode();
+        return (h ^ (h >>> 16)) & (streifen.length - 1);
+    }
+
+    /**
+     * Gehaltene Sperre eines Anmeldevorgangs
+     */
+    public static final class Sperre implements AutoCloseable {
+        private final ReentrantLock erste;
+        private final ReentrantLock zweite;
+
+        private Sperre(ReentrantLock erste, ReentrantLock zweite) {
+            this.erste = erste;
+            this.zweite = zweite;
+        }
+
+        @Override
+        public void close() {
+            if (zweite != null) {
+                zweite.unlock();
+            }
+            erste.unlock();
+        }
+    }
+}
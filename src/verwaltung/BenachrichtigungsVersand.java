@@ -0,0 +1,225 @@
+package verwaltung;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.Benachrichtigung;
+import util.BatchWarteschlange;
+import util.QuantilSketch;
+
+/**
+ * Asynchroner Versand von Benachrichtigungen.
+ *
+ * Anmeldungen und Noteneinträge reihen ihre Benachrichtigungen nur in eine
+ * begrenzte Warteschlange ein; Versand-Threads holen sie blockweise ab und
+ * übergeben jeden Block allen angemeldeten {@link ZustellKanal Kanälen}.
+ * Ist die Warteschlange voll, wartet der Aufrufer höchstens {@code maxWartezeitMs}
+ * und verwirft die Benachrichtigung dann (sie bleibt im Postfach erhalten).
+ * Solange die Warteschlange danach voll bleibt, wird ohne Warten verworfen;
+ * {@link #sendenAlle(List)} wartet für den ganzen Block höchstens einmal.
+ */
+public class BenachrichtigungsVersand {
+    public static final int STANDARD_KAPAZITAET = 10_000;
+    public static final int STANDARD_BATCH_GROESSE = 100;
+    public static final int STANDARD_WORKER = 2;
+    public static final long STANDARD_WARTEZEIT_MS = 10;
+
+    private final BatchWarteschlange<Auftrag> warteschlange;
+    private final List<ZustellKanal> kanaele = new CopyOnWriteArrayList<>();
+    private final long maxWartezeitMs;
+    // Gesetzt, nachdem ein Aufrufer vergeblich gewartet hat; bis wieder Platz ist, wird nicht mehr gewartet
+    private volatile boolean ueberlastet;
+
+    // Kennzahlen
+    private final AtomicLong angenommen = new AtomicLong();
+    private final AtomicLong verworfen = new AtomicLong();
+    private final AtomicLong zugestellt = new AtomicLong();
+    private final AtomicLong fehlgeschlagen = new AtomicLong();
+    private final QuantilSketch latenzenMs = new QuantilSketch();
+    private long maxLatenzNanos;
+
+    public BenachrichtigungsVersand() {
+        this(STANDARD_KAPAZITAET, STANDARD_BATCH_GROESSE, STANDARD_WORKER, STANDARD_WARTEZEIT_MS);
+    }
+
+    /**
+     * @param kapazitaet maximale Anzahl wartender Benachrichtigungen
+     * @param maxBatchGroesse maximale Anzahl Benachrichtigungen pro Zustellung
+     * @param anzahlWorker Anzahl der Versand-Threads
+     * @param maxWartezeitMs wie lange ein Aufrufer (bzw. ein ganzer Block) bei voller Warteschlange
+     *                       höchstens wartet, bevor verworfen wird
+     */
+    public BenachrichtigungsVersand(int kapazitaet, int maxBatchGroesse, int anzahlWorker, long maxWartezeitMs) {
+        if (maxWartezeitMs < 0) {
+            throw new IllegalArgumentException("Wartezeit darf nicht negativ sein!");
+        }
+        this.maxWartezeitMs = maxWartezeitMs;
+        this.warteschlange = new BatchWarteschlange<>("benachrichtigung-versand", kapazitaet, maxBatchGroesse,
+                0, anzahlWorker, this::zustellen);
+    }
+
+    public void kanalHinzufuegen(ZustellKanal kanal) {
+        kanaele.add(kanal);
+    }
+
+    public void kanalEntfernen(ZustellKanal kanal) {
+        kanaele.remove(kanal);
+    }
+
+    public List<ZustellKanal> getKanaele() {
+        return new ArrayList<>(kanaele);
+    }
+
+    /**
+     * Reiht eine Benachrichtigung zum Versand ein
+     *
+     * @return false, wenn sie wegen voller Warteschlange verworfen wurde
+     */
+    public boolean senden(Benachrichtigung benachrichtigung) {
+        return senden(benachrichtigung, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWartezeitMs));
+    }
+
+    /**
+     * Reiht mehrere Benachrichtigungen ein. Die Wartezeit gilt für den ganzen
+     * Block, nicht je Benachrichtigung: ist sie verbraucht, wird der Rest ohne
+     * Warten eingereiht oder verworfen.
+     *
+     * @return Anzahl der angenommenen (nicht verworfenen) Benachrichtigungen
+     */
+    public int sendenAlle(List<Benachrichtigung> benachrichtigungen) {
+        long fristNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWartezeitMs);
+        int erfolgreich = 0;
+        for (Benachrichtigung benachrichtigung : benachrichtigungen) {
+            if (senden(benachrichtigung, fristNanos)) {
+                erfolgreich++;
+            }
+        }
+        return erfolgreich;
+    }
+
+    private boolean senden(Benachrichtigung benachrichtigung, long fristNanos) {
+        Auftrag auftrag = new Auftrag(benachrichtigung, System.nanoTime());
+        try {
+            if (warteschlange.versucheEinzureihen(auftrag, 0, TimeUnit.NANOSECONDS)) {
+                ueberlastet = false;
+                angenommen.incrementAndGet();
+                return true;
+            }
+            long restNanos = fristNanos - System.nanoTime();
+            if (!ueberlastet && restNanos > 0
+                    && warteschlange.versucheEinzureihen(auftrag, restNanos, TimeUnit.NANOSECONDS)) {
+                angenommen.incrementAndGet();
+                return true;
+            }
+            ueberlastet = true;
+            verworfen.incrementAndGet();
+            return false;
+        } catch (IllegalStateException e) {
+            // Versand bereits beendet (Anwendung fährt herunter) - direkt zustellen
+            angenommen.incrementAndGet();
+            zustellen(List.of(auftrag));
+            return true;
+        }
+    }
+
+    /**
+     * Wartet, bis alle bisher eingereihten Benachrichtigungen zugestellt sind
+     */
+    public void flush() {
+        warteschlange.flush();
+    }
+
+    /**
+     * Stellt alle wartenden Benachrichtigungen zu und beendet die Versand-Threads
+     */
+    public void beenden() {
+        warteschlange.beenden();
+    }
+
+    public VersandStatistik getStatistik() {
+        double p50;
+        double p99;
+        double maxMs;
+        synchronized (latenzenMs) {
+            p50 = latenzenMs.getAnzahl() == 0 ? 0.0 : latenzenMs.getMedian();
+            p99 = latenzenMs.getAnzahl() == 0 ? 0.0 : latenzenMs.quantil(0.99);
+            maxMs = maxLatenzNanos / 1e6;
+        }
+        return new VersandStatistik(warteschlange.getTiefe(), angenommen.get(), zugestellt.get(),
+                verworfen.get(), fehlgeschlagen.get(), p50, p99, maxMs);
+    }
+
+    private void zustellen(List<Auftrag> batch) {
+        List<Benachrichtigung> benachrichtigungen = new ArrayList<>(batch.size());
+        for (Auftrag auftrag : batch) {
+            benachrichtigungen.add(auftrag.benachrichtigung);
+        }
+
+        // Ein fehlerhafter Kanal hält die übrigen nicht auf
+        boolean fehler = false;
+        for (ZustellKanal kanal : kanaele) {
+            try {
+                kanal.zustellen(benachrichtigungen);
+            } catch (Exception e) {
+                fehler = true;
+                System.err.println("Zustellung über " + kanal.getName() + " fehlgeschlagen (" + batch.size()
+                        + " Benachrichtigungen): " + e.getMessage());
+            }
+        }
+        (fehler ? fehlgeschlagen : zugestellt).addAndGet(batch.size());
+
+        long jetzt = System.nanoTime();
+        synchronized (latenzenMs) {
+            for (Auftrag auftrag : batch) {
+                long latenz = jetzt - auftrag.eingereihtNanos;
+                latenzenMs.hinzufuegen(latenz / 1e6);
+                maxLatenzNanos = Math.max(maxLatenzNanos, latenz);
+            }
+        }
+    }
+
+    private static class Auftrag {
+        final Benachrichtigung benachrichtigung;
+        final long eingereihtNanos;
+
+        Auftrag(Benachrichtigung benachrichtigung, long eingereihtNanos) {
+            this.benachrichtigung = benachrichtigung;
+            this.eingereihtNanos = eingereihtNanos;
+        }
+    }
+
+    /**
+     * Momentaufnahme der Versand-Kennzahlen
+     */
+    public static class VersandStatistik {
+        public final int tiefe;
+        public final long angenommen;
+        public final long zugestellt;
+        public final long verworfen;
+        public final long fehlgeschlagen;
+        public final double latenzP50Ms;
+        public final double latenzP99Ms;
+        public final double latenzMaxMs;
+
+        public VersandStatistik(int tiefe, long angenommen, long zugestellt, long verworfen, long fehlgeschlagen,
+                                double latenzP50Ms, double latenzP99Ms, double latenzMaxMs) {
+            this.tiefe = tiefe;
+            this.angenommen = angenommen;
+            this.zugestellt = zugestellt;
+            this.verworfen = verworfen;
+            this.fehlgeschlagen = fehlgeschlagen;
+            this.latenzP50Ms = latenzP50Ms;
+            this.latenzP99Ms = latenzP99Ms;
+            this.latenzMaxMs = latenzMaxMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Wartend: %d | Angenommen: %d | Zugestellt: %d | Verworfen: %d | Fehlgeschlagen: %d | Latenz p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    tiefe, angenommen, zugestellt, verworfen, fehlgeschlagen, latenzP50Ms, latenzP99Ms, latenzMaxMs);
+        }
+    }
+}
@@ -1,69 +1,152 @@
 package verwaltung;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import model.*;
+import util.LongMenge;
 
 /**
- * Verwaltungsklasse für automatische Benachrichtigungen
+ * Verwaltungsklasse für automatische Benachrichtigungen.
+ * Neben der globalen Liste (in Eingangsreihenfolge) wird je Empfänger ein
+ * Postfach mit der neuesten Benachrichtigung vorne geführt, dazu ein Zähler
+ * der ungelesenen Benachrichtigungen. Abfragen sind damit proportional zur
+ * Ergebnisgröße statt zur Gesamtzahl aller Benachrichtigungen.
  */
 public class BenachrichtigungsVerwaltung {
     private List<Benachrichtigung> benachrichtigungen;
-    private int naechsteId = 1;
+    private Map<Student, Deque<Benachrichtigung>> postfaecher;
+    private Map<Student, Integer> ungeleseneNachStudent;
+    // Ungelesene in Eingangsreihenfolge (für die Ansicht "Alle Studenten")
+    private Set<Benachrichtigung> ungelesene;
+    // Bereits erzeugte Fristerinnerungen je Fristtag als kompakte Hash-Menge
+    private NavigableMap<LocalDate, LongMenge> gesendeteErinnerungen;
+    // Wird von Anmeldungen aus mehreren Threads hochgezählt
+    private final AtomicInteger naechsteId = new AtomicInteger(1);
+    private final Benachrichtigung.GelesenListener gelesenPflege = this::alsGelesenVermerken;
+    // Zustellung läuft asynchron, damit Anmeldungen nicht auf die Ausgabe warten
+    private final BenachrichtigungsVersand versand;
     
     public BenachrichtigungsVerwaltung() {
+        this(standardVersand());
+    }
+    
+    public BenachrichtigungsVerwaltung(BenachrichtigungsVersand versand) {
+        this.versand = versand;
         this.benachrichtigungen = new ArrayList<>();
+        this.postfaecher = new HashMap<>();
+        this.ungeleseneNachStudent = new HashMap<>();
+        this.ungelesene = new LinkedHashSet<>();
+        this.gesendeteErinnerungen = new TreeMap<>();
+    }
+    
+    private static BenachrichtigungsVersand standardVersand() {
+        BenachrichtigungsVersand versand = new BenachrichtigungsVersand();
+        versand.kanalHinzufuegen(new KonsolenKanal());
+        return versand;
+    }
+    
+    public BenachrichtigungsVersand getVersand() {
+        return versand;
+    }
+    
+    /**
+     * Stellt alle wartenden Benachrichtigungen zu und beendet den Versand
+     */
+    public void beenden() {
+        versand.beenden();
     }
     
     /**
-     * Erstellt automatische Erinnerungen für anstehende Fristen
+     * Erinnert die angegebenen Studenten an die Anmeldefrist einer Klausur:
+     * 7 Tage vorher als Fristerinnerung, 1 Tag vorher als Warnung.
+     * Die Empfänger werden vom Aufrufer vorausgewählt (siehe
+     * ErweiterteStudentenVerwaltung.erstelleFristerinnerungen).
+     *
+     * Jede Erinnerung wird nur einmal erzeugt, auch wenn der Lauf wiederholt wird.
+     *
+     * @return Anzahl der neu erstellten Benachrichtigungen
      */
-    public void erstelleFristerinnerungen(List<Student> studenten, List<Klausur> klausuren) {
-        LocalDate heute = LocalDate.now();
+    public int erstelleFristerinnerungen(Klausur klausur, Collection<Student> empfaenger, long tageZurFrist) {
+        String nachricht;
+        String praefix;
+        LocalDate frist = klausur.getAnmeldefrist();
+        Benachrichtigung.BenachrichtigungsTyp typ;
+        if (tageZurFrist == 7) {
+            nachricht = "⚠️ Die Anmeldefrist für '" + klausur.getTitel() + 
+                       "' läuft in 7 Tagen ab! (Frist: " + klausur.getAnmeldefrist() + ")";
+            praefix = "FRIST_";
+            typ = Benachrichtigung.BenachrichtigungsTyp.FRISTERINNERUNG;
+        } else if (tageZurFrist == 1) {
+            nachricht = "🚨 LETZTE CHANCE! Anmeldefrist für '" + klausur.getTitel() + 
+                       "' läuft MORGEN ab! Jetzt anmelden!";
+            praefix = "URGENT_";
+            typ = Benachrichtigung.BenachrichtigungsTyp.WARNUNG;
+        } else {
+            return 0;
+        }
         
-        for (Klausur klausur : klausuren) {
-            long tageZurFrist = ChronoUnit.DAYS.between(heute, klausur.getAnmeldefrist());
-            
-            // Warnung 7 Tage vor Fristablauf
-            if (tageZurFrist == 7) {
-                for (Student student : studenten) {
-                    String nachricht = "⚠️ Die Anmeldefrist für '" + klausur.getTitel() + 
-                                     "' läuft in 7 Tagen ab! (Frist: " + klausur.getAnmeldefrist() + ")";
-                    
-                    Benachrichtigung benachrichtigung = new Benachrichtigung(
-                            "FRIST_" + naechsteId++, 
-                            student, 
-                            nachricht, 
-                            Benachrichtigung.BenachrichtigungsTyp.FRISTERINNERUNG
-                    );
-                    
-                    hinzufuegen(benachrichtigung);
-                    benachrichtigung.sende();
-                }
-            }
-            
-            // Finale Warnung 1 Tag vor Fristablauf
-            if (tageZurFrist == 1) {
-                for (Student student : studenten) {
-                    String nachricht = "🚨 LETZTE CHANCE! Anmeldefrist für '" + klausur.getTitel() + 
-                                     "' läuft MORGEN ab! Jetzt anmelden!";
-                    
-                    Benachrichtigung benachrichtigung = new Benachrichtigung(
-                            "URGENT_" + naechsteId++, 
-                            student, 
-                            nachricht, 
-                            Benachrichtigung.BenachrichtigungsTyp.WARNUNG
-                    );
-                    
-                    hinzufuegen(benachrichtigung);
-                    benachrichtigung.sende();
+        List<Benachrichtigung> neue = new ArrayList<>(empfaenger.size());
+        synchronized (this) {
+            LongMenge gesendet = gesendeteErinnerungen.computeIfAbsent(frist, k -> new LongMenge(empfaenger.size()));
+            for (Student student : empfaenger) {
+                // Deterministische ID (Typ, Student, Klausur, Frist): ein erneuter Lauf erzeugt keine Duplikate
+                String id = praefix + student.getMatrikelnummer() + "_" + klausur.getId() + "_" + frist;
+                if (gesendet.hinzufuegen(schluessel(id))) {
+                    neue.add(new Benachrichtigung(id, student, nachricht, typ));
                 }
             }
+            hinzufuegenAlle(neue);
         }
+        versand.sendenAlle(neue);
+        return neue.size();
+    }
+    
+    /**
+     * Vergisst die gesendeten Erinnerungen zu Fristen vor dem angegebenen Tag;
+     * für abgelaufene Fristen wird nicht mehr erinnert
+     */
+    public synchronized void vergesseErinnerungenVor(LocalDate tag) {
+        gesendeteErinnerungen.headMap(tag, false).clear();
+    }
+    
+    /**
+     * Anzahl der gemerkten Erinnerungsschlüssel (Speicherbedarf der Duplikaterkennung)
+     */
+    public synchronized int getAnzahlGemerkteErinnerungen() {
+        int anzahl = 0;
+        for (LongMenge gesendet : gesendeteErinnerungen.values()) {
+            anzahl += gesendet.getAnzahl();
+        }
+        return anzahl;
+    }
+    
+    /**
+     * 64-Bit-Hash (FNV-1a mit abschließender Durchmischung) eines Erinnerungsschlüssels.
+     * Kollisionen sind bei einigen Millionen Schlüsseln pro Tag praktisch ausgeschlossen.
+     */
+    private static long schluessel(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
     }
     
     /**
@@ -74,14 +157,14 @@ public class BenachrichtigungsVerwaltung {
                           "Klausurtermin: " + klausur.getDatum().toLocalDate() + " in " + klausur.getRaum();
         
         Benachrichtigung benachrichtigung = new Benachrichtigung(
-                "ANMELD_" + naechsteId++,
+                "ANMELD_" + naechsteId.getAndIncrement(),
                 student,
                 nachricht,
                 Benachrichtigung.BenachrichtigungsTyp.KLAUSUR_ANMELDUNG
         );
         
         hinzufuegen(benachrichtigung);
-        benachrichtigung.sende();
+        versand.senden(benachrichtigung);
     }
     
     /**
@@ -92,49 +175,155 @@ public class BenachrichtigungsVerwaltung {
                           versuch.getNote() + " (" + versuch.getBewertung() + ")";
         
         Benachrichtigung benachrichtigung = new Benachrichtigung(
-                "NOTE_" + naechsteId++,
+                "NOTE_" + naechsteId.getAndIncrement(),
                 student,
                 nachricht,
                 Benachrichtigung.BenachrichtigungsTyp.NOTE_VERFUEGBAR
         );
         
         hinzufuegen(benachrichtigung);
-        benachrichtigung.sende();
+        versand.senden(benachrichtigung);
+    }
+    
+    /**
+     * Benachrichtigt gesammelt über viele verfügbare Noten (z.B. nach Eintragen
+     * einer Notenliste); alle werden unter einer Sperre abgelegt und gemeinsam
+     * an den Versand übergeben.
+     */
+    public void benachrichtigeNotenVerfuegbar(List<Versuch> versuche) {
+        if (versuche.isEmpty()) {
+            return;
+        }
+        List<Benachrichtigung> neue = new ArrayList<>(versuche.size());
+        for (Versuch versuch : versuche) {
+            String nachricht = "📊 Note für '" + versuch.getKlausur().getTitel() + "' ist verfügbar: " +
+                              versuch.getNote() + " (" + versuch.getBewertung() + ")";
+            neue.add(new Benachrichtigung(
+                    "NOTE_" + naechsteId.getAndIncrement(),
+                    versuch.getStudent(),
+                    nachricht,
+                    Benachrichtigung.BenachrichtigungsTyp.NOTE_VERFUEGBAR
+            ));
+        }
+        
+        hinzufuegenAlle(neue);
+        versand.sendenAlle(neue);
+    }
+    
+    /**
+     * Fügt mehrere Benachrichtigungen unter einer Sperre hinzu
+     */
+    public synchronized void hinzufuegenAlle(List<Benachrichtigung> neue) {
+        for (Benachrichtigung benachrichtigung : neue) {
+            hinzufuegen(benachrichtigung);
+        }
     }
     
     /**
-     * Fügt eine Benachrichtigung hinzu
+     * Fügt eine Benachrichtigung hinzu und legt sie vorne im Postfach des Empfängers ab
      */
-    public void hinzufuegen(Benachrichtigung benachrichtigung) {
+    public synchronized void hinzufuegen(Benachrichtigung benachrichtigung) {
         benachrichtigungen.add(benachrichtigung);
+        postfaecher.computeIfAbsent(benachrichtigung.getEmpfaenger(), k -> new ArrayDeque<>()).addFirst(benachrichtigung);
+        if (!benachrichtigung.istGelesen()) {
+            ungelesene.add(benachrichtigung);
+            ungeleseneNachStudent.merge(benachrichtigung.getEmpfaenger(), 1, Integer::sum);
+        }
+        benachrichtigung.setGelesenListener(gelesenPflege);
     }
     
     /**
-     * Gibt alle Benachrichtigungen für einen Studenten zurück
+     * Gibt alle Benachrichtigungen für einen Studenten zurück (neueste zuerst)
      */
-    public List<Benachrichtigung> getBenachrichtigungenFuerStudent(Student student) {
-        return benachrichtigungen.stream()
-                .filter(b -> b.getEmpfaenger().equals(student))
-                .sorted((b1, b2) -> b2.getZeitpunkt().compareTo(b1.getZeitpunkt())) // Neueste zuerst
-                .collect(Collectors.toList());
+    public synchronized List<Benachrichtigung> getBenachrichtigungenFuerStudent(Student student) {
+        Deque<Benachrichtigung> postfach = postfaecher.get(student);
+        return postfach == null ? new ArrayList<>() : new ArrayList<>(postfach);
     }
     
     /**
-     * Gibt ungelesene Benachrichtigungen für einen Studenten zurück
+     * Gibt ungelesene Benachrichtigungen für einen Studenten zurück (neueste zuerst)
      */
-    public List<Benachrichtigung> getUngelesene(Student student) {
-        return benachrichtigungen.stream()
-                .filter(b -> b.getEmpfaenger().equals(student) && !b.istGelesen())
-                .sorted((b1, b2) -> b2.getZeitpunkt().compareTo(b1.getZeitpunkt()))
-                .collect(Collectors.toList());
+    public synchronized List<Benachrichtigung> getUngelesene(Student student) {
+        int offen = getAnzahlUngelesene(student);
+        List<Benachrichtigung> ergebnis = new ArrayList<>(offen);
+        if (offen == 0) {
+            return ergebnis;
+        }
+        for (Benachrichtigung benachrichtigung : postfaecher.get(student)) {
+            if (!benachrichtigung.istGelesen()) {
+                ergebnis.add(benachrichtigung);
+                if (ergebnis.size() == offen) {
+                    break;
+                }
+            }
+        }
+        return ergebnis;
+    }
+    
+    /**
+     * Gibt die Anzahl ungelesener Benachrichtigungen eines Studenten zurück (O(1))
+     */
+    public synchronized int getAnzahlUngelesene(Student student) {
+        return ungeleseneNachStudent.getOrDefault(student, 0);
+    }
+    
+    public synchronized int getAnzahlUngelesene() {
+        return ungelesene.size();
+    }
+    
+    public synchronized int getAnzahl() {
+        return benachrichtigungen.size();
+    }
+    
+    public synchronized int getAnzahl(Student student) {
+        Deque<Benachrichtigung> postfach = postfaecher.get(student);
+        return postfach == null ? 0 : postfach.size();
+    }
+    
+    /**
+     * Gibt alle Benachrichtigungen aller Studenten zurück (neueste zuerst)
+     */
+    public synchronized List<Benachrichtigung> getAlleBenachrichtigungen() {
+        List<Benachrichtigung> ergebnis = new ArrayList<>(benachrichtigungen.size());
+        for (int i = benachrichtigungen.size() - 1; i >= 0; i--) {
+            ergebnis.add(benachrichtigungen.get(i));
+        }
+        return ergebnis;
+    }
+    
+    /**
+     * Gibt alle ungelesenen Benachrichtigungen aller Studenten zurück (neueste zuerst)
+     */
+    public synchronized List<Benachrichtigung> getAlleUngelesenen() {
+        List<Benachrichtigung> ergebnis = new ArrayList<>(ungelesene);
+        Collections.reverse(ergebnis);
+        return ergebnis;
     }
     
     /**
      * Markiert alle Benachrichtigungen eines Studenten als gelesen
      */
-    public void alleAlsGelesenMarkieren(Student student) {
-        benachrichtigungen.stream()
-                .filter(b -> b.getEmpfaenger().equals(student))
-                .forEach(Benachrichtigung::markiereAlsGelesen);
+    public synchronized void alleAlsGelesenMarkieren(Student student) {
+        for (Benachrichtigung benachrichtigung : getUngelesene(student)) {
+            benachrichtigung.markiereAlsGelesen();
+        }
+    }
+    
+    /**
+     * Markiert alle Benachrichtigungen aller Studenten als gelesen
+     */
+    public synchronized void alleAlsGelesenMarkieren() {
+        for (Benachrichtigung benachrichtigung : new ArrayList<>(ungelesene)) {
+            benachrichtigung.markiereAlsGelesen();
+        }
+    }
+    
+    /**
+     * Hält die Ungelesen-Zähler aktuell, wenn eine Benachrichtigung gelesen wird
+     */
+    private synchronized void alsGelesenVermerken(Benachrichtigung benachrichtigung) {
+        if (ungelesene.remove(benachrichtigung)) {
+            ungeleseneNachStudent.computeIfPresent(benachrichtigung.getEmpfaenger(), (k, anzahl) -> anzahl > 1 ? anzahl - 1 : null);
+        }
     }
 }
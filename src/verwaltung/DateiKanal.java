@@ -0,0 +1,60 @@
+package verwaltung;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import model.Benachrichtigung;
+
+/**
+ * Ersatz für einen Mailserver: hängt jede Benachrichtigung als Nachricht im
+ * mbox-ähnlichen Format an eine lokale Datei an (ein Schreibvorgang pro Block).
+ */
+public class DateiKanal implements ZustellKanal {
+    private static final DateTimeFormatter ZEITFORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final Path datei;
+    private final String absender;
+
+    public DateiKanal(Path datei) {
+        this(datei, "pruefungsamt@hochschule.example");
+    }
+
+    public DateiKanal(Path datei, String absender) {
+        this.datei = datei;
+        this.absender = absender;
+    }
+
+    @Override
+    public String getName() {
+        return "Datei " + datei.getFileName();
+    }
+
+    public Path getDatei() {
+        return datei;
+    }
+
+    @Override
+    public synchronized void zustellen(List<Benachrichtigung> batch) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(datei, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Benachrichtigung benachrichtigung : batch) {
+                writer.write("From " + absender + " " + benachrichtigung.getZeitpunkt().format(ZEITFORMAT));
+                writer.newLine();
+                writer.write("To: " + benachrichtigung.getEmpfaenger().getMatrikelnummer() + "@studenten.example");
+                writer.newLine();
+                writer.write("Subject: [" + benachrichtigung.getTyp() + "] " + benachrichtigung.getId());
+                writer.newLine();
+                writer.newLine();
+                writer.write(benachrichtigung.getNachricht());
+                writer.newLine();
+                writer.newLine();
+            }
+        }
+    }
+}
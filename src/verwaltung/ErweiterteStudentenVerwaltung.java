@@ -1,13 +1,26 @@
 package verwaltung;
 
 import util.Database;
+import util.NGrammIndex;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import model.*;
 
@@ -15,31 +28,82 @@ import model.*;
  * Erweiterte Studentenverwaltung mit Validierung und Duplikat-Prüfung
  */
 public class ErweiterteStudentenVerwaltung {
-    private List<Student> studenten;
-    private Set<String> registrierteMatrikelnummern;
+    public static final int STANDARD_CHUNK_GROESSE = 500;
+    // Fristerinnerungen 7 Tage und 1 Tag vor Ende der Anmeldefrist
+    private static final int[] ERINNERUNG_TAGE_VOR_FRIST = {7, 1};
+    
+    // Primärindex Matrikelnummer -> Student (threadsicher lesbar für parallele Anmeldungen)
+    private Map<String, Student> studentenNachMatrikelnummer;
+    // Laufend gepflegte Sortierungen, damit getAlleSortiert nicht jedes Mal sortieren muss.
+    // Nebenläufige Mengen: die Ansichten aus getSortierteAnsicht bleiben während Änderungen iterierbar
+    private Map<SortierKriterium, NavigableSet<Student>> sortierteAnsichten;
+    // N-Gramm-Indizes für die Teilstring-Suche
+    private NGrammIndex<Student> namensIndex;
+    private NGrammIndex<Student> studiengangIndex;
+    // Exakter Studiengangsindex für die Auswahl von Empfängern
+    private Map<String, Set<Student>> studentenNachStudiengang;
+    // Schützt Sortierungen, N-Gramm-Indizes und Studiengangsindex. Bei einer Änderung
+    // am Studenten wird sie von vorAenderung bis nachAenderung gehalten, damit sich kein
+    // Schlüssel ändert, während der Student in einer sortierten Menge steht.
+    private final ReentrantLock indexSperre = new ReentrantLock();
+    // Zählt Indexänderungen (Anlegen, Ändern, Löschen von Studenten), siehe getAenderungsstand
+    private final AtomicLong studentenAenderungen = new AtomicLong();
+    private final Student.AenderungsListener indexPflege = new Student.AenderungsListener() {
+        @Override
+        public void vorAenderung(Student student) {
+            indexSperre.lock();
+            ausIndizesEntfernen(student);
+        }
+        
+        @Override
+        public void nachAenderung(Student student) {
+            try {
+                inIndizesEinfuegen(student);
+            } finally {
+                indexSperre.unlock();
+            }
+            speichereInDatenbank(student);
+        }
+    };
     private VersuchsVerwaltung versuchsVerwaltung;
     private BenachrichtigungsVerwaltung benachrichtigungsVerwaltung;
+    private final AnmeldeSperren anmeldeSperren = new AnmeldeSperren();
     
     public ErweiterteStudentenVerwaltung() {
-        this.studenten = new ArrayList<>();
-        this.registrierteMatrikelnummern = new HashSet<>();
+        this.studentenNachMatrikelnummer = new ConcurrentHashMap<>();
+        this.sortierteAnsichten = new EnumMap<>(SortierKriterium.class);
+        for (SortierKriterium kriterium : SortierKriterium.values()) {
+            sortierteAnsichten.put(kriterium, new ConcurrentSkipListSet<>(kriterium.comparator));
+        }
+        this.namensIndex = new NGrammIndex<>();
+        this.studiengangIndex = new NGrammIndex<>();
+        this.studentenNachStudiengang = new HashMap<>();
         this.versuchsVerwaltung = new VersuchsVerwaltung();
         this.benachrichtigungsVerwaltung = new BenachrichtigungsVerwaltung();
         erstelleTabelleWennNichtVorhanden();
         ladeDatenAusDatenbank();
     }
     
+    /**
+     * Lädt Daten, die Studenten und Klausuren verknüpfen (Anmeldungen und Prüfungsversuche).
+     * Muss nach dem Anlegen der KlausurVerwaltung einmal aufgerufen werden.
+     */
+    public void ladeAbhaengigeDaten(KlausurVerwaltung klausurVerwaltung) {
+        ladeAnmeldungenAusDatenbank(klausurVerwaltung);
+        versuchsVerwaltung.ladeAusDatenbank(this::findeNachMatrikelnummer, klausurVerwaltung::findeNachId);
+    }
+    
     /**
      * Fügt einen neuen Studenten mit Validierung hinzu
      * @throws DuplikatException bei bereits existierender Matrikelnummer
      */
-    public void hinzufuegenMitValidierung(Student student) throws DuplikatException {
+    public synchronized void hinzufuegenMitValidierung(Student student) throws DuplikatException {
         if (student == null) {
             throw new IllegalArgumentException("Student darf nicht null sein!");
         }
         
         // Prüfe auf Duplikate
-        if (registrierteMatrikelnummern.contains(student.getMatrikelnummer())) {
+        if (studentenNachMatrikelnummer.containsKey(student.getMatrikelnummer())) {
             throw new DuplikatException(
                 "Student mit Matrikelnummer " + student.getMatrikelnummer() + 
                 " existiert bereits!"
@@ -47,21 +111,19 @@ public class ErweiterteStudentenVerwaltung {
         }
         
         // Füge hinzu
-        studenten.add(student);
-        registrierteMatrikelnummern.add(student.getMatrikelnummer());
+        registrieren(student);
         speichereInDatenbank(student);
     }
     
     /**
      * Fügt einen Studenten ohne Exception hinzu (für Tests und Beispieldaten)
      */
-    public void hinzufuegen(Student student) {
+    public synchronized void hinzufuegen(Student student) {
         if (student == null) return;
         
         try {
-            if (!registrierteMatrikelnummern.contains(student.getMatrikelnummer())) {
-                studenten.add(student);
-                registrierteMatrikelnummern.add(student.getMatrikelnummer());
+            if (!studentenNachMatrikelnummer.containsKey(student.getMatrikelnummer())) {
+                registrieren(student);
                 speichereInDatenbank(student);
             }
         } catch (Exception e) {
@@ -69,6 +131,51 @@ public class ErweiterteStudentenVerwaltung {
         }
     }
     
+    /**
+     * Fügt viele Studenten auf einmal hinzu (z.B. Import eines Jahrgangs)
+     */
+    public ImportErgebnis hinzufuegenAlle(Collection<Student> neueStudenten) {
+        return hinzufuegenAlle(neueStudenten, STANDARD_CHUNK_GROESSE);
+    }
+    
+    /**
+     * Fügt viele Studenten auf einmal hinzu. Validierung und Duplikat-Prüfung
+     * laufen zuerst im Speicher, danach werden alle Zeilen in einer Transaktion
+     * per JDBC-Batch in Blöcken von {@code chunkGroesse} geschrieben.
+     * Fehlerhafte Einträge werden im Ergebnis gemeldet, ohne den Import abzubrechen.
+     */
+    public synchronized ImportErgebnis hinzufuegenAlle(Collection<Student> neueStudenten, int chunkGroesse) {
+        if (neueStudenten == null) {
+            throw new IllegalArgumentException("Studentenliste darf nicht null sein!");
+        }
+        if (chunkGroesse < 1) {
+            throw new IllegalArgumentException("Chunk-Größe muss mindestens 1 sein!");
+        }
+        
+        List<ImportFehler> fehler = new ArrayList<>();
+        List<Student> gueltig = new ArrayList<>(neueStudenten.size());
+        Set<String> imImport = new HashSet<>();
+        
+        for (Student student : neueStudenten) {
+            if (student == null) {
+                fehler.add(new ImportFehler(null, "Student darf nicht null sein!"));
+            } else if (studentenNachMatrikelnummer.containsKey(student.getMatrikelnummer())) {
+                fehler.add(new ImportFehler(student.getMatrikelnummer(), "Matrikelnummer bereits vergeben!"));
+            } else if (!imImport.add(student.getMatrikelnummer())) {
+                fehler.add(new ImportFehler(student.getMatrikelnummer(), "Matrikelnummer mehrfach im Import enthalten!"));
+            } else {
+                gueltig.add(student);
+            }
+        }
+        
+        List<Student> gespeichert = speichereAlleInDatenbank(gueltig, chunkGroesse, fehler);
+        for (Student student : gespeichert) {
+            registrieren(student);
+        }
+        
+        return new ImportErgebnis(gespeichert.size(), fehler);
+    }
+    
     /**
      * Validiert eine Matrikelnummer bevor ein Student erstellt wird
      */
@@ -80,7 +187,7 @@ public class ErweiterteStudentenVerwaltung {
         }
         
         // Prüfe Duplikate
-        if (registrierteMatrikelnummern.contains(matrikelnummer)) {
+        if (studentenNachMatrikelnummer.containsKey(matrikelnummer)) {
             return new ValidationResult(false, 
                 "Matrikelnummer bereits vergeben!");
         }
@@ -89,80 +196,93 @@ public class ErweiterteStudentenVerwaltung {
     }
     
     /**
-     * Löscht einen Studenten anhand der Matrikelnummer
+     * Löscht einen Studenten anhand der Matrikelnummer und gibt seine Plätze
+     * in allen angemeldeten Klausuren frei
      */
-    public boolean loeschen(String matrikelnummer) {
-        boolean entfernt = studenten.removeIf(s -> s.getMatrikelnummer().equals(matrikelnummer));
-        if (entfernt) {
-            registrierteMatrikelnummern.remove(matrikelnummer);
-            loescheAusDatenbank(matrikelnummer);
+    public synchronized boolean loeschen(String matrikelnummer) {
+        Student entfernt = studentenNachMatrikelnummer.remove(matrikelnummer);
+        if (entfernt == null) {
+            return false;
         }
-        return entfernt;
+        entfernt.removeAenderungsListener(indexPflege);
+        ausIndizesEntfernen(entfernt);
+        
+        // Laufende Anmeldungen des Studenten abwarten; spätere finden ihn nicht mehr
+        AnmeldeSperren.Sperre sperre = anmeldeSperren.sperrenStudent(matrikelnummer);
+        try {
+            for (Klausur klausur : entfernt.getAngemeldeteKlausuren()) {
+                klausur.studentEntfernen(entfernt);
+                entfernt.abmeldenVonKlausur(klausur);
+            }
+        } finally {
+            sperre.close();
+        }
+        loescheAusDatenbank(matrikelnummer);
+        return true;
     }
     
     /**
      * Sucht Studenten nach Nachname (Volltext)
      */
     public List<Student> suchenNachName(String nachname) {
-        return studenten.stream()
-                .filter(s -> s.getNachname().toLowerCase().contains(nachname.toLowerCase()) ||
-                           s.getVorname().toLowerCase().contains(nachname.toLowerCase()))
-                .sorted()
-                .collect(Collectors.toList());
+        List<Student> treffer;
+        indexSperre.lock();
+        try {
+            treffer = namensIndex.suchen(nachname);
+        } finally {
+            indexSperre.unlock();
+        }
+        Collections.sort(treffer);
+        return treffer;
     }
     
     /**
      * Sucht Studenten nach Studiengang
      */
     public List<Student> suchenNachStudiengang(String studiengang) {
-        return studenten.stream()
-                .filter(s -> s.getStudiengang().toLowerCase().contains(studiengang.toLowerCase()))
-                .sorted()
-                .collect(Collectors.toList());
+        List<Student> treffer;
+        indexSperre.lock();
+        try {
+            treffer = studiengangIndex.suchen(studiengang);
+        } finally {
+            indexSperre.unlock();
+        }
+        Collections.sort(treffer);
+        return treffer;
     }
     
     /**
-     * Gibt alle Studenten sortiert zurück
+     * Gibt alle Studenten sortiert zurück (Kopie der laufend gepflegten Sortierung, O(n))
      */
     public List<Student> getAlleSortiert(SortierKriterium kriterium) {
-        Comparator<Student> comparator;
-        
-        switch (kriterium) {
-            case NACHNAME:
-                comparator = Comparator.comparing(Student::getNachname)
-                                     .thenComparing(Student::getVorname);
-                break;
-            case VORNAME:
-                comparator = Comparator.comparing(Student::getVorname)
-                                     .thenComparing(Student::getNachname);
-                break;
-            case STUDIENGANG:
-                comparator = Comparator.comparing(Student::getStudiengang)
-                                     .thenComparing(Student::getNachname);
-                break;
-            case MATRIKELNUMMER:
-            default:
-                comparator = Comparator.comparing(Student::getMatrikelnummer);
-                break;
-        }
-        
-        return studenten.stream()
-                .sorted(comparator)
-                .collect(Collectors.toList());
+        return new ArrayList<>(sortierteAnsichten.get(kriterium));
+    }
+    
+    /**
+     * Gibt eine nicht veränderbare, stets aktuelle Sicht auf die sortierten Studenten zurück.
+     * Die Iteration ist schwach konsistent: ein gerade geänderter Student kann kurz fehlen.
+     */
+    public NavigableSet<Student> getSortierteAnsicht(SortierKriterium kriterium) {
+        return Collections.unmodifiableNavigableSet(sortierteAnsichten.get(kriterium));
+    }
+    
+    /**
+     * Gibt die Anzahl der Studenten zurück
+     */
+    public int getAnzahl() {
+        return studentenNachMatrikelnummer.size();
     }
     
     /**
      * Findet Student anhand Matrikelnummer
      */
     public Student findeNachMatrikelnummer(String matrikelnummer) {
-        return studenten.stream()
-                .filter(s -> s.getMatrikelnummer().equals(matrikelnummer))
-                .findFirst()
-                .orElse(null);
+        return studentenNachMatrikelnummer.get(matrikelnummer);
     }
     
     /**
-     * Meldet einen Studenten zu einer Klausur an
+     * Meldet einen Studenten zu einer Klausur an. Threadsicher: Konfliktprüfung,
+     * Platzvergabe und Eintrag laufen unter den Sperren von Student und Klausur.
      */
     public void anmeldenZuKlausur(String matrikelnummer, Klausur klausur) 
             throws FristAbgelaufenException, KlausurKonfliktException {
@@ -171,16 +291,36 @@ public class ErweiterteStudentenVerwaltung {
             throw new IllegalArgumentException("Student nicht gefunden: " + matrikelnummer);
         }
         
-        // Prüfe auf Konflikte mit bereits angemeldeten Klausuren
-        for (Klausur angemeldet : student.getAngemeldeteKlausuren()) {
-            if (angemeldet.konfliktMit(klausur)) {
-                throw new KlausurKonfliktException("Zeitkonflikt mit " + angemeldet.getTitel());
+        AnmeldeSperren.Sperre sperre = anmeldeSperren.sperren(matrikelnummer, klausur.getId());
+        try {
+            // Inzwischen gelöscht? (loeschen entfernt die Anmeldungen unter derselben Sperre)
+            if (studentenNachMatrikelnummer.get(matrikelnummer) != student) {
+                throw new IllegalArgumentException("Student nicht gefunden: " + matrikelnummer);
+            }
+            
+            // Prüfe auf Konflikte mit bereits angemeldeten Klausuren
+            for (Klausur angemeldet : student.getAngemeldeteKlausuren()) {
+                if (angemeldet.konfliktMit(klausur)) {
+                    throw new KlausurKonfliktException("Zeitkonflikt mit " + angemeldet.getTitel());
+                }
+            }
+            
+            // Anmeldung durchführen (zuerst an der Klausur, damit eine volle Klausur nichts verändert)
+            boolean warZugelassen = klausur.istStudentZugelassen(student);
+            klausur.studentHinzufuegen(student);
+            try {
+                student.anmeldenZuKlausur(klausur);
+            } catch (FristAbgelaufenException e) {
+                // Frist zwischen beiden Schritten abgelaufen: Platz wieder freigeben
+                if (!warZugelassen) {
+                    klausur.studentEntfernen(student);
+                }
+                throw e;
             }
+        } finally {
+            sperre.close();
         }
-        
-        // Anmeldung durchführen
-        student.anmeldenZuKlausur(klausur);
-        klausur.studentHinzufuegen(student);
+        speichereAnmeldung(student, klausur);
         
         // Benachrichtigung senden
         benachrichtigungsVerwaltung.benachrichtigeKlausuranmeldung(student, klausur);
@@ -194,6 +334,10 @@ public class ErweiterteStudentenVerwaltung {
         if (student == null) {
             throw new IllegalArgumentException("Student nicht gefunden: " + matrikelnummer);
         }
+        String fehler = pruefeNote(note);
+        if (fehler != null) {
+            throw new IllegalArgumentException(fehler);
+        }
         
         Versuch versuch = new Versuch(student, klausur, note, datum);
         versuchsVerwaltung.versuchHinzufuegen(versuch);
@@ -202,35 +346,161 @@ public class ErweiterteStudentenVerwaltung {
         benachrichtigungsVerwaltung.benachrichtigeNotenVerfuegbar(student, versuch);
     }
     
+    /**
+     * Trägt die Notenliste einer Klausur ein (Matrikelnummer → Note).
+     * Alle Einträge werden zuerst wie bei der Einzeleingabe geprüft (Student vorhanden,
+     * Note zwischen 1.0 und 5.0); gültige Versuche
+     * werden danach in einer Transaktion gespeichert und die Studenten gesammelt benachrichtigt.
+     * Fehlerhafte Einträge werden im Ergebnis gemeldet, ohne die Liste abzubrechen.
+     */
+    public ImportErgebnis versucheEintragen(Klausur klausur, Map<String, Double> noten, LocalDate datum) {
+        if (klausur == null || noten == null || datum == null) {
+            throw new IllegalArgumentException("Klausur, Notenliste und Datum dürfen nicht null sein!");
+        }
+        
+        List<ImportFehler> fehler = new ArrayList<>();
+        List<Versuch> gueltig = new ArrayList<>(noten.size());
+        for (Map.Entry<String, Double> eintrag : noten.entrySet()) {
+            Student student = findeNachMatrikelnummer(eintrag.getKey());
+            Double note = eintrag.getValue();
+            String grund = student == null ? "Student nicht gefunden!" : pruefeNote(note);
+            if (grund != null) {
+                fehler.add(new ImportFehler(eintrag.getKey(), grund));
+            } else {
+                gueltig.add(new Versuch(student, klausur, note, datum));
+            }
+        }
+        
+        try {
+            versuchsVerwaltung.versucheHinzufuegen(gueltig);
+        } catch (SQLException e) {
+            System.err.println("Fehler beim Speichern der Notenliste: " + e.getMessage());
+            for (Versuch versuch : gueltig) {
+                fehler.add(new ImportFehler(versuch.getStudent().getMatrikelnummer(), "Datenbankfehler: " + e.getMessage()));
+            }
+            return new ImportErgebnis(0, fehler);
+        }
+        
+        benachrichtigungsVerwaltung.benachrichtigeNotenVerfuegbar(gueltig);
+        return new ImportErgebnis(gueltig.size(), fehler);
+    }
+    
+    /**
+     * Gemeinsame Prüfung für Einzel- und Listeneingabe
+     *
+     * @return Fehlertext oder null, wenn die Note gültig ist
+     */
+    private static String pruefeNote(Double note) {
+        if (note == null || !(note >= 1.0 && note <= 5.0)) {
+            return "Ungültige Note: " + note;
+        }
+        return null;
+    }
+    
     /**
      * Gibt Studenten mit schlechten Leistungen zurück (Durchschnitt > 3.0)
      */
     public List<Student> getStudentenMitSchlechtenLeistungen() {
-        return studenten.stream()
+        return studentenNachMatrikelnummer.values().stream()
                 .filter(s -> {
                     double durchschnitt = s.berechneNotendurchschnitt();
                     return durchschnitt > 3.0 && durchschnitt > 0; // > 0 bedeutet es gibt Noten
                 })
-                .sorted(Comparator.comparing(Student::berechneNotendurchschnitt).reversed())
+                .sorted(Comparator.comparingDouble(Student::berechneNotendurchschnitt).reversed())
                 .collect(Collectors.toList());
     }
     
     /**
-     * Erstellt automatische Erinnerungen für alle Studenten
+     * Erstellt die Fristerinnerungen des Tages. Über den Fristindex werden nur
+     * Klausuren betrachtet, deren Anmeldefrist in 7 bzw. 1 Tag(en) endet; erinnert
+     * werden nur Studenten der angebotenen Studiengänge, die noch nicht angemeldet
+     * sind und die Klausur noch nicht bestanden haben. Wiederholte Läufe am selben
+     * Tag erzeugen keine doppelten Erinnerungen.
+     *
+     * @return Anzahl der erstellten Benachrichtigungen
+     */
+    public int erstelleFristerinnerungen(KlausurVerwaltung klausurVerwaltung, LocalDate heute) {
+        benachrichtigungsVerwaltung.vergesseErinnerungenVor(heute);
+        int erstellt = 0;
+        for (int tage : ERINNERUNG_TAGE_VOR_FRIST) {
+            for (Klausur klausur : klausurVerwaltung.getKlausurenMitFristAm(heute.plusDays(tage))) {
+                erstellt += benachrichtigungsVerwaltung.erstelleFristerinnerungen(klausur, getErinnerungsEmpfaenger(klausur), tage);
+            }
+        }
+        return erstellt;
+    }
+    
+    /**
+     * Erstellt automatische Erinnerungen für die übergebenen Klausuren, deren
+     * Anmeldefrist heute in 7 bzw. 1 Tag(en) endet
      */
     public void erstelleAutomatischeErinnerungen(List<Klausur> klausuren) {
-        benachrichtigungsVerwaltung.erstelleFristerinnerungen(studenten, klausuren);
+        LocalDate heute = LocalDate.now();
+        benachrichtigungsVerwaltung.vergesseErinnerungenVor(heute);
+        for (Klausur klausur : klausuren) {
+            long tage = ChronoUnit.DAYS.between(heute, klausur.getAnmeldefrist());
+            for (int erinnerungsTag : ERINNERUNG_TAGE_VOR_FRIST) {
+                if (tage == erinnerungsTag) {
+                    benachrichtigungsVerwaltung.erstelleFristerinnerungen(klausur, getErinnerungsEmpfaenger(klausur), tage);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Wählt die Empfänger beim Durchlaufen der Kandidaten aus, ohne die Kandidaten
+     * vorher zu kopieren: Aufwand = Erinnerungen + bereits angemeldete oder bestandene Kandidaten
+     */
+    private List<Student> getErinnerungsEmpfaenger(Klausur klausur) {
+        List<Student> empfaenger = new ArrayList<>();
+        if (klausur.getStudiengaenge().isEmpty()) {
+            waehleErinnerungsEmpfaenger(studentenNachMatrikelnummer.values(), klausur, empfaenger);
+            return empfaenger;
+        }
+        indexSperre.lock();
+        try {
+            for (String studiengang : klausur.getStudiengaenge()) {
+                Set<Student> studenten = studentenNachStudiengang.get(studiengang);
+                if (studenten != null) {
+                    waehleErinnerungsEmpfaenger(studenten, klausur, empfaenger);
+                }
+            }
+        } finally {
+            indexSperre.unlock();
+        }
+        return empfaenger;
+    }
+    
+    private static void waehleErinnerungsEmpfaenger(Collection<Student> kandidaten, Klausur klausur, List<Student> empfaenger) {
+        for (Student student : kandidaten) {
+            if (!student.istAngemeldetZu(klausur) && !student.hatBestanden(klausur)) {
+                empfaenger.add(student);
+            }
+        }
+    }
+    
+    /**
+     * Gibt alle Studenten eines Studiengangs zurück (exakter Vergleich, O(Treffer))
+     */
+    public List<Student> getStudentenImStudiengang(String studiengang) {
+        indexSperre.lock();
+        try {
+            Set<Student> studenten = studentenNachStudiengang.get(studiengang);
+            return studenten == null ? new ArrayList<>() : new ArrayList<>(studenten);
+        } finally {
+            indexSperre.unlock();
+        }
     }
     
     /**
      * Gibt Statistiken über Matrikelnummern zurück
      */
     public MatrikelnummerStatistik getMatrikelnummerStatistik() {
-        if (studenten.isEmpty()) {
+        if (studentenNachMatrikelnummer.isEmpty()) {
             return new MatrikelnummerStatistik(0, "", "", 0);
         }
         
-        List<String> nummern = new ArrayList<>(registrierteMatrikelnummern);
+        List<String> nummern = new ArrayList<>(studentenNachMatrikelnummer.keySet());
         nummern.sort(String::compareTo);
         
         double avgLength = nummern.stream()
@@ -246,6 +516,15 @@ public class ErweiterteStudentenVerwaltung {
         );
     }
     
+    /**
+     * Änderungsstand von Studenten und Versuchen: wächst mit jedem neuen Versuch und
+     * jedem angelegten, geänderten oder gelöschten Studenten. Gleicher Stand heißt,
+     * dass ein daraus berechneter Bericht noch aktuell ist.
+     */
+    public long getAenderungsstand() {
+        return studentenAenderungen.get() + versuchsVerwaltung.getAnzahlVersuche();
+    }
+    
     public VersuchsVerwaltung getVersuchsVerwaltung() {
         return versuchsVerwaltung;
     }
@@ -254,8 +533,37 @@ public class ErweiterteStudentenVerwaltung {
         return benachrichtigungsVerwaltung;
     }
     
+    /**
+     * Stellt wartende Benachrichtigungen zu, schreibt ausstehende Versuche und
+     * beendet die Hintergrund-Threads dieser Verwaltung
+     */
+    public void schliessen() {
+        benachrichtigungsVerwaltung.beenden();
+        try {
+            versuchsVerwaltung.schliessen();
+        } catch (SQLException e) {
+            System.err.println("Fehler beim Speichern der Versuche: " + e.getMessage());
+        }
+    }
+    
     public enum SortierKriterium {
-        MATRIKELNUMMER, NACHNAME, VORNAME, STUDIENGANG
+        MATRIKELNUMMER(Comparator.comparing(Student::getMatrikelnummer)),
+        NACHNAME(Comparator.comparing(Student::getNachname)
+                .thenComparing(Student::getVorname)
+                .thenComparing(Student::getMatrikelnummer)),
+        VORNAME(Comparator.comparing(Student::getVorname)
+                .thenComparing(Student::getNachname)
+                .thenComparing(Student::getMatrikelnummer)),
+        STUDIENGANG(Comparator.comparing(Student::getStudiengang)
+                .thenComparing(Student::getNachname)
+                .thenComparing(Student::getMatrikelnummer));
+        
+        // Matrikelnummer als letztes Kriterium, damit keine zwei Studenten als gleich gelten
+        private final Comparator<Student> comparator;
+        
+        SortierKriterium(Comparator<Student> comparator) {
+            this.comparator = comparator;
+        }
     }
     
     // Hilfsklassen
@@ -290,6 +598,36 @@ public class ErweiterteStudentenVerwaltung {
         }
     }
     
+    public static class ImportErgebnis {
+        public final int hinzugefuegt;
+        public final List<ImportFehler> fehler;
+        
+        public ImportErgebnis(int hinzugefuegt, List<ImportFehler> fehler) {
+            this.hinzugefuegt = hinzugefuegt;
+            this.fehler = fehler;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Hinzugefügt: %d | Fehlerhaft: %d", hinzugefuegt, fehler.size());
+        }
+    }
+    
+    public static class ImportFehler {
+        public final String matrikelnummer;
+        public final String grund;
+        
+        public ImportFehler(String matrikelnummer, String grund) {
+            this.matrikelnummer = matrikelnummer;
+            this.grund = grund;
+        }
+        
+        @Override
+        public String toString() {
+            return (matrikelnummer != null ? matrikelnummer : "?") + ": " + grund;
+        }
+    }
+    
     // Custom Exception für Duplikate
     public static class DuplikatException extends Exception {
         public DuplikatException(String message) {
@@ -297,6 +635,49 @@ public class ErweiterteStudentenVerwaltung {
         }
     }
     
+    // Indexpflege
+    private void registrieren(Student student) {
+        studentenNachMatrikelnummer.put(student.getMatrikelnummer(), student);
+        inIndizesEinfuegen(student);
+        student.addAenderungsListener(indexPflege);
+    }
+    
+    private void inIndizesEinfuegen(Student student) {
+        indexSperre.lock();
+        try {
+            for (NavigableSet<Student> ansicht : sortierteAnsichten.values()) {
+                ansicht.add(student);
+            }
+            namensIndex.hinzufuegen(student, student.getVorname(), student.getNachname());
+            studiengangIndex.hinzufuegen(student, student.getStudiengang());
+            studentenNachStudiengang.computeIfAbsent(student.getStudiengang(), k -> new LinkedHashSet<>()).add(student);
+        } finally {
+            indexSperre.unlock();
+        }
+        studentenAenderungen.incrementAndGet();
+    }
+    
+    private void ausIndizesEntfernen(Student student) {
+        indexSperre.lock();
+        try {
+            for (NavigableSet<Student> ansicht : sortierteAnsichten.values()) {
+                ansicht.remove(student);
+            }
+            namensIndex.entfernen(student);
+            studiengangIndex.entfernen(student);
+            Set<Student> imStudiengang = studentenNachStudiengang.get(student.getStudiengang());
+            if (imStudiengang != null) {
+                imStudiengang.remove(student);
+                if (imStudiengang.isEmpty()) {
+                    studentenNachStudiengang.remove(student.getStudiengang());
+                }
+            }
+        } finally {
+            indexSperre.unlock();
+        }
+        studentenAenderungen.incrementAndGet();
+    }
+    
     // Datenbankoperationen
     private void erstelleTabelleWennNichtVorhanden() {
         String sql = """
@@ -314,30 +695,170 @@ public class ErweiterteStudentenVerwaltung {
         } catch (SQLException e) {
             System.err.println("Fehler beim Erstellen der Student-Tabelle: " + e.getMessage());
         }
+        
+        // Primärschlüssel (klausur_id, matrikelnummer) liefert die Sortierung für das Laden
+        String anmeldungSql = """
+            CREATE TABLE IF NOT EXISTS anmeldung (
+                klausur_id TEXT NOT NULL,
+                matrikelnummer TEXT NOT NULL,
+                PRIMARY KEY (klausur_id, matrikelnummer)
+            ) WITHOUT ROWID
+        """;
+        
+        try (Connection conn = Database.connect(); Statement stmt = conn.createStatement()) {
+            stmt.execute(anmeldungSql);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_anmeldung_student ON anmeldung (matrikelnummer)");
+        } catch (SQLException e) {
+            System.err.println("Fehler beim Erstellen der Anmeldung-Tabelle: " + e.getMessage());
+        }
     }
     
     private void speichereInDatenbank(Student student) {
         String sql = "INSERT OR REPLACE INTO student (matrikelnummer, vorname, nachname, studiengang, geburtsdatum) VALUES (?, ?, ?, ?, ?)";
+        Database.schreiben("Fehler beim Speichern des Studenten", conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                setzeParameter(pstmt, student);
+                pstmt.executeUpdate();
+            }
+        });
+    }
+    
+    /**
+     * Schreibt alle Studenten in einer Transaktion. Schlägt ein Batch-Block fehl,
+     * wird er bis zum Savepoint zurückgerollt und zeilenweise wiederholt, damit
+     * nur die fehlerhaften Zeilen verworfen werden.
+     * @return die erfolgreich gespeicherten Studenten
+     */
+    private List<Student> speichereAlleInDatenbank(List<Student> neue, int chunkGroesse, List<ImportFehler> fehler) {
+        List<Student> gespeichert = new ArrayList<>(neue.size());
+        if (neue.isEmpty()) {
+            return gespeichert;
+        }
+        int fehlerVorher = fehler.size();
+        
+        // Eingereihte Einzel-Schreibzugriffe zuerst committen, damit die Reihenfolge erhalten bleibt
+        Database.flush();
+        
+        String sql = "INSERT INTO student (matrikelnummer, vorname, nachname, studiengang, geburtsdatum) VALUES (?, ?, ?, ?, ?)";
         try (Connection conn = Database.connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, student.getMatrikelnummer());
-            pstmt.setString(2, student.getVorname());
-            pstmt.setString(3, student.getNachname());
-            pstmt.setString(4, student.getStudiengang());
-            pstmt.setString(5, student.getGeburtsdatum() != null ? student.getGeburtsdatum().toString() : null);
-            pstmt.executeUpdate();
+            conn.setAutoCommit(false);
+            try {
+                for (int start = 0; start < neue.size(); start += chunkGroesse) {
+                    List<Student> chunk = neue.subList(start, Math.min(start + chunkGroesse, neue.size()));
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        for (Student student : chunk) {
+                            setzeParameter(pstmt, student);
+                            pstmt.addBatch();
+                        }
+                        pstmt.executeBatch();
+                        gespeichert.addAll(chunk);
+                    } catch (SQLException e) {
+                        pstmt.clearBatch();
+                        conn.rollback(savepoint);
+                        for (Student student : chunk) {
+                            try {
+                                setzeParameter(pstmt, student);
+                                pstmt.executeUpdate();
+                                gespeichert.add(student);
+                            } catch (SQLException zeilenFehler) {
+                                fehler.add(new ImportFehler(student.getMatrikelnummer(), zeilenFehler.getMessage()));
+                            }
+                        }
+                    }
+                    conn.releaseSavepoint(savepoint);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
-            System.err.println("Fehler beim Speichern des Studenten: " + e.getMessage());
+            System.err.println("Fehler beim Speichern der Studenten: " + e.getMessage());
+            // Nichts wurde committet: jede Zeile genau einmal als fehlgeschlagen melden,
+            // auch die des abgebrochenen und der noch nicht versuchten Blöcke
+            fehler.subList(fehlerVorher, fehler.size()).clear();
+            for (Student student : neue) {
+                fehler.add(new ImportFehler(student.getMatrikelnummer(), "Transaktion fehlgeschlagen: " + e.getMessage()));
+            }
+            gespeichert.clear();
         }
+        return gespeichert;
+    }
+    
+    private void setzeParameter(PreparedStatement pstmt, Student student) throws SQLException {
+        pstmt.setString(1, student.getMatrikelnummer());
+        pstmt.setString(2, student.getVorname());
+        pstmt.setString(3, student.getNachname());
+        pstmt.setString(4, student.getStudiengang());
+        pstmt.setString(5, student.getGeburtsdatum() != null ? student.getGeburtsdatum().toString() : null);
     }
     
     private void loescheAusDatenbank(String matrikelnummer) {
         String sql = "DELETE FROM student WHERE matrikelnummer = ?";
-        try (Connection conn = Database.connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, matrikelnummer);
-            pstmt.executeUpdate();
+        Database.schreiben("Fehler beim Löschen des Studenten", conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, matrikelnummer);
+                pstmt.executeUpdate();
+            }
+        });
+        
+        String anmeldungSql = "DELETE FROM anmeldung WHERE matrikelnummer = ?";
+        Database.schreiben("Fehler beim Löschen der Anmeldungen", conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(anmeldungSql)) {
+                pstmt.setString(1, matrikelnummer);
+                pstmt.executeUpdate();
+            }
+        });
+    }
+    
+    private void speichereAnmeldung(Student student, Klausur klausur) {
+        String sql = "INSERT OR IGNORE INTO anmeldung (klausur_id, matrikelnummer) VALUES (?, ?)";
+        Database.schreiben("Fehler beim Speichern der Anmeldung", conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, klausur.getId());
+                pstmt.setString(2, student.getMatrikelnummer());
+                pstmt.executeUpdate();
+            }
+        });
+    }
+    
+    /**
+     * Stellt alle Anmeldungen mit einem sortierten Scan wieder her. Da die Zeilen nach
+     * Klausur gruppiert kommen, wird jede Klausur nur einmal nachgeschlagen.
+     */
+    private void ladeAnmeldungenAusDatenbank(KlausurVerwaltung klausurVerwaltung) {
+        long start = System.nanoTime();
+        int anzahl = 0;
+        String sql = "SELECT klausur_id, matrikelnummer FROM anmeldung ORDER BY klausur_id, matrikelnummer";
+        
+        try (Connection conn = Database.connect(); Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(1000);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                String aktuelleKlausurId = null;
+                Klausur klausur = null;
+                while (rs.next()) {
+                    String klausurId = rs.getString(1);
+                    if (!klausurId.equals(aktuelleKlausurId)) {
+                        aktuelleKlausurId = klausurId;
+                        klausur = klausurVerwaltung.findeNachId(klausurId);
+                    }
+                    Student student = findeNachMatrikelnummer(rs.getString(2));
+                    if (klausur == null || student == null) {
+                        continue;
+                    }
+                    
+                    student.anmeldungWiederherstellen(klausur);
+                    klausur.teilnehmerWiederherstellen(student);
+                    anzahl++;
+                }
+            }
         } catch (SQLException e) {
-            System.err.println("Fehler beim Löschen des Studenten: " + e.getMessage());
+            System.err.println("Fehler beim Laden der Anmeldungen: " + e.getMessage());
         }
+        
+        long dauerMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("🗓️ " + anzahl + " Anmeldungen in " + dauerMs + " ms geladen");
     }
     
     private void ladeDatenAusDatenbank() {
@@ -355,8 +876,7 @@ public class ErweiterteStudentenVerwaltung {
                             rs.getString("studiengang"),
                             geburtsdatum
                     );
-                    studenten.add(student);
-                    registrierteMatrikelnummern.add(student.getMatrikelnummer());
+                    registrieren(student);
                 } catch (IllegalArgumentException e) {
                     // Ungültige Daten in DB - überspringe diesen Eintrag
                     System.err.println("Warnung: Ungültiger Student in Datenbank: " + e.getMessage());
@@ -371,15 +891,13 @@ public class ErweiterteStudentenVerwaltung {
      * Zeigt alle Studenten auf der Konsole an
      */
     public void alleAnzeigen() {
-        if (studenten.isEmpty()) {
+        if (studentenNachMatrikelnummer.isEmpty()) {
             System.out.println("Keine Studenten vorhanden.");
             return;
         }
         
         System.out.println("\n=== ALLE STUDENTEN ===");
-        studenten.stream()
-                .sorted()
-                .forEach(System.out::println);
-        System.out.println("Gesamt: " + studenten.size() + " Studenten\n");
+        sortierteAnsichten.get(SortierKriterium.MATRIKELNUMMER).forEach(System.out::println);
+        System.out.println("Gesamt: " + studentenNachMatrikelnummer.size() + " Studenten\n");
     }
 }
@@ -7,32 +7,111 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
- * Verwaltungsklasse für Klausuren mit ArrayList-basierter Speicherung
+ * Verwaltungsklasse für Klausuren mit zeitlich sortierter Speicherung
  */
 public class KlausurVerwaltung {
-    private List<Klausur> klausuren;
+    private static final int FETCH_SIZE = 1000;
+    
+    // Nach Termin (und ID) sortierter Bestand; Zeiträume sind Teilansichten davon
+    private NavigableMap<Zeitschluessel, Klausur> klausurenNachZeit;
+    private Map<String, Klausur> klausurenNachId;
+    // Kalenderindex für die Konfliktprüfung: Prüfungstag -> Klausuren des Tages
+    private NavigableMap<LocalDate, List<Klausur>> klausurenNachTag;
+    // Fristindex für Erinnerungen: Anmeldefrist -> Klausuren mit dieser Frist
+    private NavigableMap<LocalDate, List<Klausur>> klausurenNachFrist;
+    // Platzzahl je Raum (nicht eingetragene Räume sind unbegrenzt)
+    private Map<String, Integer> raumKapazitaeten;
+    private final Klausur.AenderungsListener kalenderPflege = new Klausur.AenderungsListener() {
+        @Override
+        public void vorAenderung(Klausur klausur) {
+            klausurenNachZeit.remove(Zeitschluessel.von(klausur));
+            ausKalenderEntfernen(klausur);
+            ausTagesindexEntfernen(klausurenNachFrist, klausur.getAnmeldefrist(), klausur);
+        }
+        
+        @Override
+        public void nachAenderung(Klausur klausur) {
+            klausurenNachZeit.put(Zeitschluessel.von(klausur), klausur);
+            inKalenderEinfuegen(klausur);
+            inTagesindexEinfuegen(klausurenNachFrist, klausur.getAnmeldefrist(), klausur);
+            klausur.setRaumKapazitaet(getRaumKapazitaet(klausur.getRaum()));
+            aktualisiereInDatenbank(klausur);
+        }
+    };
+    
+    /**
+     * Sortierschlüssel des Bestands: Termin, bei Gleichstand die ID
+     */
+    private static final class Zeitschluessel implements Comparable<Zeitschluessel> {
+        private final LocalDateTime datum;
+        private final String id;
+        
+        private Zeitschluessel(LocalDateTime datum, String id) {
+            this.datum = datum;
+            this.id = id;
+        }
+        
+        static Zeitschluessel von(Klausur klausur) {
+            return new Zeitschluessel(klausur.getDatum(), klausur.getId());
+        }
+        
+        /**
+         * Untergrenze für alle Klausuren ab dem angegebenen Zeitpunkt
+         */
+        static Zeitschluessel ab(LocalDateTime datum) {
+            return new Zeitschluessel(datum, "");
+        }
+        
+        @Override
+        public int compareTo(Zeitschluessel andere) {
+            int vergleich = datum.compareTo(andere.datum);
+            return vergleich != 0 ? vergleich : id.compareTo(andere.id);
+        }
+    }
     
     public KlausurVerwaltung() {
-        this.klausuren = new ArrayList<>();
+        this.klausurenNachZeit = new TreeMap<>();
+        this.klausurenNachId = new HashMap<>();
+        this.klausurenNachTag = new TreeMap<>();
+        this.klausurenNachFrist = new TreeMap<>();
+        this.raumKapazitaeten = new HashMap<>();
         erstelleTabelleWennNichtVorhanden();
+        ladeRaeumeAusDatenbank();
+        ladeDatenAusDatenbank();
     }
     
     /**
      * Fügt eine neue Klausur hinzu
      */
     public void hinzufuegen(Klausur klausur) throws KlausurKonfliktException {
-        // Prüfe auf Konflikte
-        for (Klausur vorhandene : klausuren) {
-            if (vorhandene.konfliktMit(klausur)) {
-                throw new KlausurKonfliktException("Zeitkonflikt mit " + vorhandene.getTitel());
+        if (klausurenNachId.containsKey(klausur.getId())) {
+            throw new KlausurKonfliktException("Klausur mit ID " + klausur.getId() + " existiert bereits!");
+        }
+        
+        // Prüfe auf Konflikte (nur Klausuren im selben Kalenderfenster kommen infrage)
+        List<Klausur> amSelbenTag = klausurenNachTag.get(kalenderSchluessel(klausur));
+        if (amSelbenTag != null) {
+            for (Klausur vorhandene : amSelbenTag) {
+                if (vorhandene.konfliktMit(klausur)) {
+                    throw new KlausurKonfliktException("Zeitkonflikt mit " + vorhandene.getTitel());
+                }
             }
         }
         
-        klausuren.add(klausur);
+        registrieren(klausur);
         speichereInDatenbank(klausur);
     }
     
@@ -40,18 +119,55 @@ public class KlausurVerwaltung {
      * Entfernt eine Klausur
      */
     public boolean loeschen(String id) {
-        boolean entfernt = klausuren.removeIf(k -> k.getId().equals(id));
-        if (entfernt) {
-            loescheAusDatenbank(id);
+        Klausur klausur = klausurenNachId.remove(id);
+        if (klausur == null) {
+            return false;
+        }
+        klausurenNachZeit.remove(Zeitschluessel.von(klausur));
+        ausKalenderEntfernen(klausur);
+        ausTagesindexEntfernen(klausurenNachFrist, klausur.getAnmeldefrist(), klausur);
+        klausur.removeAenderungsListener(kalenderPflege);
+        // Anmeldungen der Teilnehmer ebenfalls entfernen
+        for (Student student : klausur.getTeilnehmendeStudenten()) {
+            student.abmeldenVonKlausur(klausur);
+        }
+        loescheAusDatenbank(id);
+        return true;
+    }
+    
+    /**
+     * Legt die Platzzahl eines Raums fest (0 = unbegrenzt) und überträgt sie
+     * auf alle Klausuren in diesem Raum
+     */
+    public void setRaumKapazitaet(String raum, int plaetze) {
+        if (raum == null || raum.trim().isEmpty()) {
+            throw new IllegalArgumentException("Raum darf nicht leer sein!");
+        }
+        if (plaetze < 0) {
+            throw new IllegalArgumentException("Kapazität darf nicht negativ sein!");
+        }
+        if (plaetze == 0) {
+            raumKapazitaeten.remove(raum);
+        } else {
+            raumKapazitaeten.put(raum, plaetze);
+        }
+        for (Klausur klausur : klausurenNachId.values()) {
+            if (raum.equals(klausur.getRaum())) {
+                klausur.setRaumKapazitaet(plaetze);
+            }
         }
-        return entfernt;
+        speichereRaum(raum, plaetze);
+    }
+    
+    public int getRaumKapazitaet(String raum) {
+        return raum == null ? 0 : raumKapazitaeten.getOrDefault(raum, 0);
     }
     
     /**
      * Sucht Klausuren nach Titel oder Modul
      */
     public List<Klausur> suchenNachTitel(String suchtext) {
-        return klausuren.stream()
+        return klausurenNachZeit.values().stream()
                 .filter(k -> k.getTitel().toLowerCase().contains(suchtext.toLowerCase()) ||
                            k.getModul().toLowerCase().contains(suchtext.toLowerCase()))
                 .collect(Collectors.toList());
@@ -61,43 +177,125 @@ public class KlausurVerwaltung {
      * Gibt alle Klausuren sortiert nach Datum zurück
      */
     public List<Klausur> getAlleSortiert() {
-        return klausuren.stream()
-                .sorted()
-                .collect(Collectors.toList());
+        return new ArrayList<>(klausurenNachZeit.values());
     }
     
     /**
      * Findet Klausuren in einem bestimmten Zeitraum
      */
     public List<Klausur> suchenNachZeitraum(LocalDate von, LocalDate bis) {
-        return klausuren.stream()
-                .filter(k -> {
-                    LocalDate klausurDatum = k.getDatum().toLocalDate();
-                    return !klausurDatum.isBefore(von) && !klausurDatum.isAfter(bis);
-                })
-                .sorted()
-                .collect(Collectors.toList());
+        return new ArrayList<>(getAnsicht(von.atStartOfDay(), bis.plusDays(1).atStartOfDay()));
     }
     
     /**
      * Gibt kommende Klausuren zurück (ab heute)
      */
     public List<Klausur> getKommendeKlausuren() {
-        LocalDate heute = LocalDate.now();
-        return klausuren.stream()
-                .filter(k -> !k.getDatum().toLocalDate().isBefore(heute))
-                .sorted()
-                .collect(Collectors.toList());
+        return new ArrayList<>(getKommendeAnsicht());
+    }
+    
+    /**
+     * Gibt die Klausuren von heute bis eine Woche ab jetzt zurück
+     */
+    public List<Klausur> getKlausurenDieseWoche() {
+        return new ArrayList<>(getDieseWocheAnsicht());
+    }
+    
+    /**
+     * Sortierte, nicht veränderbare Teilansicht aller Klausuren mit
+     * von &lt;= Termin &lt; bis (ohne Kopie, spiegelt spätere Änderungen wider)
+     */
+    public Collection<Klausur> getAnsicht(LocalDateTime von, LocalDateTime bis) {
+        if (!von.isBefore(bis)) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(
+                klausurenNachZeit.subMap(Zeitschluessel.ab(von), true, Zeitschluessel.ab(bis), false).values());
+    }
+    
+    public int getAnzahl() {
+        return klausurenNachZeit.size();
+    }
+    
+    public int zaehleKommende() {
+        return getKommendeAnsicht().size();
+    }
+    
+    public int zaehleDieseWoche() {
+        return getDieseWocheAnsicht().size();
+    }
+    
+    private Collection<Klausur> getKommendeAnsicht() {
+        return klausurenNachZeit.tailMap(Zeitschluessel.ab(LocalDate.now().atStartOfDay()), true).values();
+    }
+    
+    private Collection<Klausur> getDieseWocheAnsicht() {
+        return getAnsicht(LocalDate.now().atStartOfDay(), LocalDateTime.now().plusWeeks(1));
+    }
+    
+    /**
+     * Gibt die Klausuren zurück, deren Anmeldefrist am angegebenen Tag endet (O(Treffer))
+     */
+    public List<Klausur> getKlausurenMitFristAm(LocalDate tag) {
+        List<Klausur> klausuren = klausurenNachFrist.get(tag);
+        return klausuren == null ? new ArrayList<>() : new ArrayList<>(klausuren);
     }
     
     /**
      * Findet Klausur anhand der ID
      */
     public Klausur findeNachId(String id) {
-        return klausuren.stream()
-                .filter(k -> k.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return klausurenNachId.get(id);
+    }
+    
+    private void registrieren(Klausur klausur) {
+        klausurenNachZeit.put(Zeitschluessel.von(klausur), klausur);
+        klausurenNachId.put(klausur.getId(), klausur);
+        inKalenderEinfuegen(klausur);
+        inTagesindexEinfuegen(klausurenNachFrist, klausur.getAnmeldefrist(), klausur);
+        klausur.setRaumKapazitaet(getRaumKapazitaet(klausur.getRaum()));
+        klausur.addAenderungsListener(kalenderPflege);
+    }
+    
+    /**
+     * Schlüssel des Kalenderindex; derzeit der Prüfungstag, da Konflikte
+     * tageweise definiert sind (siehe Klausur.konfliktMit)
+     */
+    private static LocalDate kalenderSchluessel(Klausur klausur) {
+        return klausur.getDatum().toLocalDate();
+    }
+    
+    private void inKalenderEinfuegen(Klausur klausur) {
+        inTagesindexEinfuegen(klausurenNachTag, kalenderSchluessel(klausur), klausur);
+    }
+    
+    private void ausKalenderEntfernen(Klausur klausur) {
+        ausTagesindexEntfernen(klausurenNachTag, kalenderSchluessel(klausur), klausur);
+    }
+    
+    private static void inTagesindexEinfuegen(Map<LocalDate, List<Klausur>> index, LocalDate tag, Klausur klausur) {
+        index.computeIfAbsent(tag, k -> new ArrayList<>()).add(klausur);
+    }
+    
+    private static void ausTagesindexEntfernen(Map<LocalDate, List<Klausur>> index, LocalDate tag, Klausur klausur) {
+        List<Klausur> klausuren = index.get(tag);
+        if (klausuren != null) {
+            klausuren.remove(klausur);
+            if (klausuren.isEmpty()) {
+                index.remove(tag);
+            }
+        }
+    }
+    
+    /**
+     * Studiengänge werden als durch ';' getrennte Liste gespeichert (leer = alle)
+     */
+    private static String studiengaengeAlsText(Klausur klausur) {
+        return String.join(";", klausur.getStudiengaenge());
+    }
+    
+    private static List<String> studiengaengeAusText(String text) {
+        return text == null || text.isEmpty() ? List.of() : Arrays.asList(text.split(";"));
     }
     
     private void erstelleTabelleWennNichtVorhanden() {
@@ -109,40 +307,162 @@ public class KlausurVerwaltung {
                 datum TEXT NOT NULL,
                 raum TEXT,
                 max_versuche INTEGER DEFAULT 3,
-                anmeldefrist TEXT NOT NULL
+                anmeldefrist TEXT NOT NULL,
+                kapazitaet INTEGER DEFAULT 0,
+                studiengaenge TEXT DEFAULT ''
+            )
+        """;
+        String raumSql = """
+            CREATE TABLE IF NOT EXISTS raum (
+                name TEXT PRIMARY KEY,
+                kapazitaet INTEGER NOT NULL
             )
         """;
         
         try (Connection conn = Database.connect(); Statement stmt = conn.createStatement()) {
             stmt.execute(sql);
+            stmt.execute(raumSql);
         } catch (SQLException e) {
             System.err.println("Fehler beim Erstellen der Klausur-Tabelle: " + e.getMessage());
         }
+        
+        // Bestehende Datenbanken um neuere Spalten ergänzen
+        String[][] neueSpalten = {
+            {"kapazitaet", "INTEGER DEFAULT 0"},
+            {"studiengaenge", "TEXT DEFAULT ''"}
+        };
+        try (Connection conn = Database.connect(); Statement stmt = conn.createStatement()) {
+            Set<String> vorhanden = new HashSet<>();
+            try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(klausur)")) {
+                while (rs.next()) {
+                    vorhanden.add(rs.getString("name").toLowerCase());
+                }
+            }
+            for (String[] spalte : neueSpalten) {
+                if (!vorhanden.contains(spalte[0])) {
+                    stmt.execute("ALTER TABLE klausur ADD COLUMN " + spalte[0] + " " + spalte[1]);
+                    System.out.println("🛠️ Spalte klausur." + spalte[0] + " ergänzt");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Fehler beim Ergänzen der Klausur-Spalten: " + e.getMessage());
+        }
     }
     
     private void speichereInDatenbank(Klausur klausur) {
-        String sql = "INSERT INTO klausur (id, titel, modul, datum, raum, max_versuche, anmeldefrist) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = Database.connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, klausur.getId());
-            pstmt.setString(2, klausur.getTitel());
-            pstmt.setString(3, klausur.getModul());
-            pstmt.setString(4, klausur.getDatum().toString());
-            pstmt.setString(5, klausur.getRaum());
-            pstmt.setInt(6, klausur.getMaxVersuche());
-            pstmt.setString(7, klausur.getAnmeldefrist().toString());
-            pstmt.executeUpdate();
+        String sql = "INSERT INTO klausur (id, titel, modul, datum, raum, max_versuche, anmeldefrist, kapazitaet, studiengaenge) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        Database.schreiben("Fehler beim Speichern der Klausur", conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, klausur.getId());
+                pstmt.setString(2, klausur.getTitel());
+                pstmt.setString(3, klausur.getModul());
+                pstmt.setString(4, klausur.getDatum().toString());
+                pstmt.setString(5, klausur.getRaum());
+                pstmt.setInt(6, klausur.getMaxVersuche());
+                pstmt.setString(7, klausur.getAnmeldefrist().toString());
+                pstmt.setInt(8, klausur.getKapazitaet());
+                pstmt.setString(9, studiengaengeAlsText(klausur));
+                pstmt.executeUpdate();
+            }
+        });
+    }
+    
+    private void aktualisiereInDatenbank(Klausur klausur) {
+        String sql = "UPDATE klausur SET datum = ?, raum = ?, anmeldefrist = ?, kapazitaet = ?, studiengaenge = ? WHERE id = ?";
+        Database.schreiben("Fehler beim Aktualisieren der Klausur", conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, klausur.getDatum().toString());
+                pstmt.setString(2, klausur.getRaum());
+                pstmt.setString(3, klausur.getAnmeldefrist().toString());
+                pstmt.setInt(4, klausur.getKapazitaet());
+                pstmt.setString(5, studiengaengeAlsText(klausur));
+                pstmt.setString(6, klausur.getId());
+                pstmt.executeUpdate();
+            }
+        });
+    }
+    
+    private void speichereRaum(String raum, int plaetze) {
+        String sql = plaetze == 0
+                ? "DELETE FROM raum WHERE name = ?"
+                : "INSERT OR REPLACE INTO raum (name, kapazitaet) VALUES (?, ?)";
+        Database.schreiben("Fehler beim Speichern der Raumkapazität", conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, raum);
+                if (plaetze != 0) {
+                    pstmt.setInt(2, plaetze);
+                }
+                pstmt.executeUpdate();
+            }
+        });
+    }
+    
+    private void ladeRaeumeAusDatenbank() {
+        String sql = "SELECT name, kapazitaet FROM raum";
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                raumKapazitaeten.put(rs.getString(1), rs.getInt(2));
+            }
         } catch (SQLException e) {
-            System.err.println("Fehler beim Speichern der Klausur: " + e.getMessage());
+            System.err.println("Fehler beim Laden der Räume: " + e.getMessage());
         }
     }
     
     private void loescheAusDatenbank(String id) {
         String sql = "DELETE FROM klausur WHERE id = ?";
-        try (Connection conn = Database.connect(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
+        Database.schreiben("Fehler beim Löschen der Klausur", conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+        });
+        
+        String anmeldungSql = "DELETE FROM anmeldung WHERE klausur_id = ?";
+        Database.schreiben("Fehler beim Löschen der Anmeldungen", conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(anmeldungSql)) {
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+        });
+    }
+    
+    /**
+     * Lädt alle Klausuren in einem Durchlauf und baut Bestand, ID-, Kalender- und Fristindex neu auf
+     */
+    private void ladeDatenAusDatenbank() {
+        long start = System.nanoTime();
+        String sql = "SELECT id, titel, modul, datum, raum, max_versuche, anmeldefrist, kapazitaet, studiengaenge FROM klausur";
+        
+        try (Connection conn = Database.connect(); Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    try {
+                        Klausur klausur = new Klausur(
+                                rs.getString(1),
+                                rs.getString(2),
+                                rs.getString(3),
+                                LocalDateTime.parse(rs.getString(4)),
+                                rs.getString(5),
+                                rs.getInt(6),
+                                LocalDate.parse(rs.getString(7))
+                        );
+                        klausur.setKapazitaet(rs.getInt(8));
+                        klausur.setStudiengaenge(studiengaengeAusText(rs.getString(9)));
+                        registrieren(klausur);
+                    } catch (RuntimeException e) {
+                        // Ungültige Daten in DB - überspringe diesen Eintrag
+                        System.err.println("Warnung: Ungültige Klausur in Datenbank: " + e.getMessage());
+                    }
+                }
+            }
         } catch (SQLException e) {
-            System.err.println("Fehler beim Löschen der Klausur: " + e.getMessage());
+            System.err.println("Fehler beim Laden der Klausuren: " + e.getMessage());
         }
+        
+        long dauerMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("📚 " + klausurenNachZeit.size() + " Klausuren in " + dauerMs + " ms geladen");
     }
 }
@@ -0,0 +1,50 @@
+package verwaltung;
+
+import java.util.List;
+
+import model.Benachrichtigung;
+
+/**
+ * Gibt Benachrichtigungen auf der Konsole aus. Ein Block wird mit einer einzigen
+ * Ausgabe geschrieben und auf {@code maxZeilenProBatch} Zeilen gekürzt, damit
+ * große Notenlisten die Konsole nicht fluten.
+ */
+public class KonsolenKanal implements ZustellKanal {
+    public static final int STANDARD_MAX_ZEILEN = 20;
+
+    private final int maxZeilenProBatch;
+
+    public KonsolenKanal() {
+        this(STANDARD_MAX_ZEILEN);
+    }
+
+    public KonsolenKanal(int maxZeilenProBatch) {
+        if (maxZeilenProBatch < 1) {
+            throw new IllegalArgumentException("Mindestens eine Zeile pro Batch erforderlich!");
+        }
+        this.maxZeilenProBatch = maxZeilenProBatch;
+    }
+
+    @Override
+    public String getName() {
+        return "Konsole";
+    }
+
+    @Override
+    public void zustellen(List<Benachrichtigung> batch) {
+        StringBuilder ausgabe = new StringBuilder();
+        int anzahl = Math.min(batch.size(), maxZeilenProBatch);
+        for (int i = 0; i < anzahl; i++) {
+            Benachrichtigung benachrichtigung = batch.get(i);
+            ausgabe.append("📧 Benachrichtigung an ")
+                    .append(benachrichtigung.getEmpfaenger().getVorname()).append(' ')
+                    .append(benachrichtigung.getEmpfaenger().getNachname()).append(": ")
+                    .append(benachrichtigung.getNachricht()).append(System.lineSeparator());
+        }
+        if (batch.size() > anzahl) {
+            ausgabe.append("📧 ... und ").append(batch.size() - anzahl).append(" weitere Benachrichtigungen")
+                    .append(System.lineSeparator());
+        }
+        System.out.print(ausgabe);
+    }
+}
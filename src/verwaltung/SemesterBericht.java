@@ -0,0 +1,252 @@
+package verwaltung;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+import model.*;
+import util.QuantilSketch;
+
+/**
+ * Semesterbericht über alle Klausuren und Studiengänge.
+ *
+ * Alle Kennzahlen werden in einem einzigen parallelen Durchlauf über die Versuche
+ * berechnet: Jeder Teil-Stream sammelt in ein eigenes {@link Teilergebnis}, die
+ * Teilergebnisse werden anschließend paarweise zusammengeführt. Der Aufwand ist
+ * damit O(Versuche) statt O(Klausuren × Versuche) und verteilt sich auf alle Kerne.
+ *
+ * Die Klausurstatistiken umfassen alle Versuche. Studiengangskennzahlen und
+ * Gefährdetenliste zählen nur Studenten, die noch eingeschrieben sind; die Versuche
+ * gelöschter Studenten bleiben in der Versuchsverwaltung erhalten.
+ */
+public class SemesterBericht {
+    // Gleiche Schwelle wie ErweiterteStudentenVerwaltung.getStudentenMitSchlechtenLeistungen
+    public static final double GEFAEHRDUNGS_SCHWELLE = 3.0;
+
+    public final Map<Klausur, VersuchsVerwaltung.KlausurStatistik> klausurStatistiken;
+    public final Map<String, StudiengangKennzahlen> studiengaenge;
+    public final List<Gefaehrdung> gefaehrdete;
+    public final int anzahlVersuche;
+    public final int parallelitaet;
+    public final long dauerMs;
+
+    private SemesterBericht(Map<Klausur, VersuchsVerwaltung.KlausurStatistik> klausurStatistiken,
+                            Map<String, StudiengangKennzahlen> studiengaenge, List<Gefaehrdung> gefaehrdete,
+                            int anzahlVersuche, int parallelitaet, long dauerMs) {
+        this.klausurStatistiken = klausurStatistiken;
+        this.studiengaenge = studiengaenge;
+        this.gefaehrdete = gefaehrdete;
+        this.anzahlVersuche = anzahlVersuche;
+        this.parallelitaet = parallelitaet;
+        this.dauerMs = dauerMs;
+    }
+
+    /**
+     * Erstellt den Bericht über alle Versuche; Studenten zählen nur, solange sie
+     * in der Studentenverwaltung eingeschrieben sind
+     */
+    public static SemesterBericht erstellen(ErweiterteStudentenVerwaltung studentenVerwaltung) {
+        return erstellen(studentenVerwaltung.getVersuchsVerwaltung().getAlleVersuche(),
+                student -> studentenVerwaltung.findeNachMatrikelnummer(student.getMatrikelnummer()) == student);
+    }
+
+    /**
+     * Erstellt den Bericht über die angegebenen Versuche (parallel im ForkJoin-Common-Pool)
+     *
+     * @param istEingeschrieben welche Studenten in Studiengangskennzahlen und Gefährdetenliste zählen
+     */
+    public static SemesterBericht erstellen(Collection<Versuch> versuche, Predicate<Student> istEingeschrieben) {
+        long start = System.nanoTime();
+
+        Teilergebnis gesamt = versuche.parallelStream()
+                .collect(() -> new Teilergebnis(istEingeschrieben), Teilergebnis::hinzufuegen, Teilergebnis::zusammenfuehren);
+
+        Map<Klausur, VersuchsVerwaltung.KlausurStatistik> klausurStatistiken = new HashMap<>();
+        gesamt.klausuren.forEach((klausur, teil) -> klausurStatistiken.put(klausur, teil.statistik()));
+
+        // Durchschnitt je Student bilden und den Studiengängen bzw. der Gefährdetenliste zuordnen
+        Map<String, double[]> durchschnitteNachStudiengang = new HashMap<>();
+        List<Gefaehrdung> gefaehrdete = new ArrayList<>();
+        gesamt.studenten.forEach((student, teil) -> {
+            double durchschnitt = teil.bestanden == 0 ? 0.0 : teil.summeBestanden / teil.bestanden;
+            if (durchschnitt > 0) {
+                double[] summeUndAnzahl = durchschnitteNachStudiengang.computeIfAbsent(student.getStudiengang(), k -> new double[2]);
+                summeUndAnzahl[0] += durchschnitt;
+                summeUndAnzahl[1]++;
+            }
+            if (durchschnitt > GEFAEHRDUNGS_SCHWELLE) {
+                gefaehrdete.add(new Gefaehrdung(student, durchschnitt));
+            }
+        });
+        gefaehrdete.sort(Comparator.comparingDouble((Gefaehrdung g) -> g.durchschnitt).reversed()
+                .thenComparing(g -> g.student));
+
+        Map<String, StudiengangKennzahlen> studiengaenge = new TreeMap<>();
+        gesamt.studiengaenge.forEach((studiengang, teil) -> {
+            double[] summeUndAnzahl = durchschnitteNachStudiengang.getOrDefault(studiengang, new double[2]);
+            studiengaenge.put(studiengang, new StudiengangKennzahlen(studiengang, teil, summeUndAnzahl));
+        });
+
+        long dauerMs = (System.nanoTime() - start) / 1_000_000;
+        return new SemesterBericht(klausurStatistiken, studiengaenge, gefaehrdete, versuche.size(),
+                ForkJoinPool.getCommonPoolParallelism(), dauerMs);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Semesterbericht: %d Versuche | %d Klausuren | %d Studiengänge | %d gefährdet | %d ms (%d Threads)",
+                anzahlVersuche, klausurStatistiken.size(), studiengaenge.size(), gefaehrdete.size(), dauerMs, parallelitaet);
+    }
+
+    /**
+     * Kennzahlen eines Studiengangs
+     */
+    public static class StudiengangKennzahlen {
+        public final String studiengang;
+        public final int versuche;
+        public final int bestanden;
+        public final int studentenMitNoten;
+        // Mittelwert der Notendurchschnitte der Studenten (wie in der Studiengangsübersicht)
+        public final double durchschnittsnote;
+        public final double median;
+        public final double p10;
+        public final double p90;
+
+        StudiengangKennzahlen(String studiengang, StudiengangTeil teil, double[] summeUndAnzahlDurchschnitte) {
+            this.studiengang = studiengang;
+            this.versuche = teil.versuche;
+            this.bestanden = teil.bestanden;
+            this.studentenMitNoten = (int) summeUndAnzahlDurchschnitte[1];
+            this.durchschnittsnote = studentenMitNoten == 0 ? 0.0 : summeUndAnzahlDurchschnitte[0] / studentenMitNoten;
+            this.median = teil.noten.getMedian();
+            this.p10 = teil.noten.quantil(0.1);
+            this.p90 = teil.noten.quantil(0.9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d Versuche | %d Studenten mit Noten | Ø %.2f | Median %.1f (P10 %.1f / P90 %.1f)",
+                    studiengang, versuche, studentenMitNoten, durchschnittsnote, median, p10, p90);
+        }
+    }
+
+    /**
+     * Ein gefährdeter Student (Notendurchschnitt über der Schwelle)
+     */
+    public static class Gefaehrdung {
+        public final Student student;
+        public final double durchschnitt;
+
+        Gefaehrdung(Student student, double durchschnitt) {
+            this.student = student;
+            this.durchschnitt = durchschnitt;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.2f - %s, %s (%s)", durchschnitt,
+                    student.getNachname(), student.getVorname(), student.getStudiengang());
+        }
+    }
+
+    /**
+     * Veränderbares Zwischenergebnis eines Teil-Streams
+     */
+    private static class Teilergebnis {
+        final Map<Klausur, KlausurTeil> klausuren = new HashMap<>();
+        final Map<Student, StudentTeil> studenten = new HashMap<>();
+        final Map<String, StudiengangTeil> studiengaenge = new HashMap<>();
+        final Predicate<Student> istEingeschrieben;
+
+        Teilergebnis(Predicate<Student> istEingeschrieben) {
+            this.istEingeschrieben = istEingeschrieben;
+        }
+
+        void hinzufuegen(Versuch versuch) {
+            klausuren.computeIfAbsent(versuch.getKlausur(), k -> new KlausurTeil()).hinzufuegen(versuch);
+            if (!istEingeschrieben.test(versuch.getStudent())) {
+                return;
+            }
+            studenten.computeIfAbsent(versuch.getStudent(), k -> new StudentTeil()).hinzufuegen(versuch);
+            studiengaenge.computeIfAbsent(versuch.getStudent().getStudiengang(), k -> new StudiengangTeil()).hinzufuegen(versuch);
+        }
+
+        void zusammenfuehren(Teilergebnis anderes) {
+            anderes.klausuren.forEach((klausur, teil) -> klausuren.merge(klausur, teil, KlausurTeil::zusammenfuehren));
+            anderes.studenten.forEach((student, teil) -> studenten.merge(student, teil, StudentTeil::zusammenfuehren));
+            anderes.studiengaenge.forEach((studiengang, teil) -> studiengaenge.merge(studiengang, teil, StudiengangTeil::zusammenfuehren));
+        }
+    }
+
+    private static class KlausurTeil {
+        int gesamt;
+        int bestanden;
+        double summeBestanden;
+
+        void hinzufuegen(Versuch versuch) {
+            gesamt++;
+            if (versuch.istBestanden()) {
+                bestanden++;
+                summeBestanden += versuch.getNote();
+            }
+        }
+
+        KlausurTeil zusammenfuehren(KlausurTeil anderer) {
+            gesamt += anderer.gesamt;
+            bestanden += anderer.bestanden;
+            summeBestanden += anderer.summeBestanden;
+            return this;
+        }
+
+        VersuchsVerwaltung.KlausurStatistik statistik() {
+            double durchschnitt = bestanden == 0 ? 0.0 : summeBestanden / bestanden;
+            double quote = gesamt == 0 ? 0.0 : (double) bestanden / gesamt * 100;
+            return new VersuchsVerwaltung.KlausurStatistik(gesamt, durchschnitt, quote, bestanden, gesamt - bestanden);
+        }
+    }
+
+    private static class StudentTeil {
+        int bestanden;
+        double summeBestanden;
+
+        void hinzufuegen(Versuch versuch) {
+            if (versuch.istBestanden()) {
+                bestanden++;
+                summeBestanden += versuch.getNote();
+            }
+        }
+
+        StudentTeil zusammenfuehren(StudentTeil anderer) {
+            bestanden += anderer.bestanden;
+            summeBestanden += anderer.summeBestanden;
+            return this;
+        }
+    }
+
+    private static class StudiengangTeil {
+        int versuche;
+        int bestanden;
+        final QuantilSketch noten = new QuantilSketch();
+
+        void hinzufuegen(Versuch versuch) {
+            versuche++;
+            if (versuch.istBestanden()) {
+                bestanden++;
+            }
+            noten.hinzufuegen(versuch.getNote());
+        }
+
+        StudiengangTeil zusammenfuehren(StudiengangTeil anderer) {
+            versuche += anderer.versuche;
+            bestanden += anderer.bestanden;
+            noten.zusammenfuehren(anderer.noten);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package verwaltung;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Benachrichtigung;
+
+/**
+ * Sammelt zugestellte Benachrichtigungen im Speicher (für Tests und Lastläufe)
+ */
+public class SpeicherKanal implements ZustellKanal {
+    private final List<Benachrichtigung> zugestellt = new ArrayList<>();
+
+    @Override
+    public String getName() {
+        return "Speicher";
+    }
+
+    @Override
+    public synchronized void zustellen(List<Benachrichtigung> batch) {
+        zugestellt.addAll(batch);
+    }
+
+    public synchronized List<Benachrichtigung> getZugestellt() {
+        return new ArrayList<>(zugestellt);
+    }
+
+    public synchronized int getAnzahl() {
+        return zugestellt.size();
+    }
+
+    public synchronized void leeren() {
+        zugestellt.clear();
+    }
+}
@@ -1,74 +1,301 @@
 package verwaltung;
 
+import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 import model.*;
+import util.BatchWarteschlange;
+import util.Database;
+import util.QuantilSketch;
 
 /**
- * Verwaltungsklasse für Prüfungsversuche
+ * Verwaltungsklasse für Prüfungsversuche.
+ * Versuche werden nur angehängt (append-only) und von einem eigenen
+ * Hintergrund-Schreiber in Batches in die Tabelle {@code versuch} geschrieben.
+ * Im Speicher sind sie nach Student und nach Klausur indiziert (jeweils nach Datum sortiert),
+ * sodass Abfragen proportional zur Ergebnisgröße sind.
  */
 public class VersuchsVerwaltung {
-    private List<Versuch> versuche;
+    private static final int FETCH_SIZE = 1000;
+    // Feste Klassen der Notenverteilung; nicht bestandene Noten landen bei 5.0
+    private static final double[] NOTENSTUFEN = {1.0, 1.3, 1.7, 2.0, 2.3, 2.7, 3.0, 3.3, 3.7, 4.0, 5.0};
+    private static final String INSERT_SQL = "INSERT INTO versuch (matrikelnummer, klausur_id, note, datum) VALUES (?, ?, ?, ?)";
+    
+    private int anzahlVersuche;
+    private Map<Student, List<Versuch>> versucheNachStudent;
+    private Map<Klausur, List<Versuch>> versucheNachKlausur;
+    // Anzahl der Versuche je (Student, Klausur)
+    private Map<Student, Map<Klausur, Integer>> anzahlNachStudentUndKlausur;
+    // Laufend mitgeführte Kennzahlen je Klausur
+    private Map<Klausur, KlausurAggregat> aggregateNachKlausur;
+    // Quantil-Sketches aller Noten je Studiengang (Studiengang zum Zeitpunkt des Versuchs)
+    private Map<String, QuantilSketch> notenNachStudiengang;
+    private BatchWarteschlange<Versuch> schreiber;
+    // Versuche, deren Batch nicht geschrieben werden konnte; flush() holt sie nach
+    private final List<Versuch> nichtGespeichert = new ArrayList<>();
+    private boolean geladen;
     
     public VersuchsVerwaltung() {
-        this.versuche = new ArrayList<>();
+        this.versucheNachStudent = new HashMap<>();
+        this.versucheNachKlausur = new HashMap<>();
+        this.anzahlNachStudentUndKlausur = new HashMap<>();
+        this.aggregateNachKlausur = new HashMap<>();
+        this.notenNachStudiengang = new HashMap<>();
+        erstelleTabelleWennNichtVorhanden();
+        this.schreiber = new BatchWarteschlange<>("versuch-writer", 10_000, 500, 20, 1, this::schreibeBatch);
+        Database.registriereSchreiber(schreiber);
     }
     
     /**
-     * Registriert einen neuen Prüfungsversuch
+     * Registriert einen neuen Prüfungsversuch (threadsicher)
      */
-    public void versuchHinzufuegen(Versuch versuch) {
-        versuche.add(versuch);
+    public synchronized void versuchHinzufuegen(Versuch versuch) {
+        indizieren(versuch);
         // Auch dem Studenten hinzufügen
         versuch.getStudent().addVersuch(versuch);
+        persistieren(versuch);
+    }
+    
+    /**
+     * Registriert viele Versuche auf einmal (z.B. die Notenliste einer Klausur).
+     * Alle Zeilen werden in einer Transaktion geschrieben; Indizes und Kennzahlen
+     * werden erst nach dem Commit aktualisiert. Schlägt das Schreiben fehl, bleibt
+     * der Speicherzustand unverändert.
+     */
+    public synchronized void versucheHinzufuegen(List<Versuch> versuche) throws SQLException {
+        if (versuche.isEmpty()) {
+            return;
+        }
+        // Eingereihte Einzelversuche zuerst committen, damit die Reihenfolge erhalten bleibt
+        flush();
+        speichereInDatenbank(versuche);
+        
+        for (Versuch versuch : versuche) {
+            indizieren(versuch);
+            versuch.getStudent().addVersuch(versuch);
+        }
+    }
+    
+    /**
+     * Wartet, bis alle eingereihten Versuche geschrieben sind, und wiederholt
+     * zuvor fehlgeschlagene Batches
+     *
+     * @throws SQLException wenn Versuche weiterhin nicht gespeichert werden können
+     */
+    public void flush() throws SQLException {
+        schreiber.flush();
+        List<Versuch> nachholen;
+        synchronized (nichtGespeichert) {
+            if (nichtGespeichert.isEmpty()) {
+                return;
+            }
+            nachholen = new ArrayList<>(nichtGespeichert);
+            nichtGespeichert.clear();
+        }
+        try {
+            speichereInDatenbank(nachholen);
+        } catch (SQLException e) {
+            synchronized (nichtGespeichert) {
+                nichtGespeichert.addAll(0, nachholen);
+            }
+            throw new SQLException(nachholen.size() + " Versuche konnten nicht gespeichert werden: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Anzahl der Versuche, die im Speicher, aber (noch) nicht in der Datenbank sind
+     */
+    public int getAnzahlNichtGespeichert() {
+        synchronized (nichtGespeichert) {
+            return nichtGespeichert.size();
+        }
+    }
+    
+    /**
+     * Schreibt alle ausstehenden Versuche, beendet den Hintergrund-Schreiber und
+     * meldet ihn bei der Datenbank ab. Danach wird jeder Versuch direkt geschrieben.
+     *
+     * @throws SQLException wenn Versuche nicht gespeichert werden konnten
+     */
+    public void schliessen() throws SQLException {
+        schreiber.beenden();
+        Database.abmeldenSchreiber(schreiber);
+        flush();
+    }
+    
+    /**
+     * Lädt alle gespeicherten Versuche und hängt sie direkt an die Studenten an.
+     * Versuche zu unbekannten Studenten oder Klausuren werden übersprungen.
+     */
+    public synchronized void ladeAusDatenbank(Function<String, Student> studentSuche, Function<String, Klausur> klausurSuche) {
+        if (geladen) {
+            return;
+        }
+        geladen = true;
+        
+        long start = System.nanoTime();
+        int uebersprungen = 0;
+        String sql = "SELECT matrikelnummer, klausur_id, note, datum FROM versuch ORDER BY id";
+        
+        try (Connection conn = Database.connect(); Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    Student student = studentSuche.apply(rs.getString(1));
+                    Klausur klausur = klausurSuche.apply(rs.getString(2));
+                    if (student == null || klausur == null) {
+                        uebersprungen++;
+                        continue;
+                    }
+                    
+                    Versuch versuch = new Versuch(student, klausur, rs.getDouble(3), LocalDate.parse(rs.getString(4)));
+                    indizieren(versuch);
+                    student.addVersuch(versuch);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Fehler beim Laden der Versuche: " + e.getMessage());
+        }
+        
+        long dauerMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("📝 " + anzahlVersuche + " Versuche in " + dauerMs + " ms geladen" +
+                (uebersprungen > 0 ? " (" + uebersprungen + " ohne Student/Klausur übersprungen)" : ""));
     }
     
     /**
      * Gibt alle Versuche eines Studenten zurück
      */
-    public List<Versuch> getVersucheFuerStudent(Student student) {
-        return versuche.stream()
-                .filter(v -> v.getStudent().equals(student))
-                .sorted()
-                .collect(Collectors.toList());
+    public synchronized List<Versuch> getVersucheFuerStudent(Student student) {
+        return kopie(versucheNachStudent.get(student));
     }
     
     /**
      * Gibt alle Versuche für eine Klausur zurück
      */
-    public List<Versuch> getVersucheFuerKlausur(Klausur klausur) {
-        return versuche.stream()
-                .filter(v -> v.getKlausur().equals(klausur))
-                .sorted()
-                .collect(Collectors.toList());
+    public synchronized List<Versuch> getVersucheFuerKlausur(Klausur klausur) {
+        return kopie(versucheNachKlausur.get(klausur));
+    }
+
+    /**
+     * Gibt eine Momentaufnahme aller Versuche zurück (z.B. für den Semesterbericht)
+     */
+    public synchronized List<Versuch> getAlleVersuche() {
+        List<Versuch> alle = new ArrayList<>(anzahlVersuche);
+        for (List<Versuch> versuche : versucheNachKlausur.values()) {
+            alle.addAll(versuche);
+        }
+        return alle;
+    }
+
+    /**
+     * Gibt zurück, wie oft ein Student die Klausur bereits geschrieben hat
+     */
+    public synchronized int getAnzahlVersuche(Student student, Klausur klausur) {
+        Map<Klausur, Integer> proKlausur = anzahlNachStudentUndKlausur.get(student);
+        return proKlausur == null ? 0 : proKlausur.getOrDefault(klausur, 0);
+    }
+    
+    public synchronized int getAnzahlVersuche() {
+        return anzahlVersuche;
     }
     
     /**
-     * Berechnet Statistiken für eine Klausur
+     * Gibt die Statistik einer Klausur aus den laufenden Kennzahlen zurück (O(1))
      */
-    public KlausurStatistik berechneStatistik(Klausur klausur) {
-        List<Versuch> klausurVersuche = getVersucheFuerKlausur(klausur);
+    public synchronized KlausurStatistik berechneStatistik(Klausur klausur) {
+        KlausurAggregat aggregat = aggregateNachKlausur.get(klausur);
         
-        if (klausurVersuche.isEmpty()) {
+        if (aggregat == null || aggregat.gesamt == 0) {
             return new KlausurStatistik(0, 0.0, 0.0, 0, 0);
         }
         
-        int gesamtVersuche = klausurVersuche.size();
-        int bestandeneVersuche = (int) klausurVersuche.stream().filter(Versuch::istBestanden).count();
+        double durchschnittsnote = aggregat.bestanden == 0 ? 0.0 : aggregat.summeBestanden / aggregat.bestanden;
+        double bestehendenquote = (double) aggregat.bestanden / aggregat.gesamt * 100;
         
-        double durchschnittsnote = klausurVersuche.stream()
-                .filter(Versuch::istBestanden)
-                .mapToDouble(Versuch::getNote)
-                .average()
-                .orElse(0.0);
-        
-        double bestehendenquote = (double) bestandeneVersuche / gesamtVersuche * 100;
+        return new KlausurStatistik(aggregat.gesamt, durchschnittsnote, bestehendenquote, aggregat.bestanden, aggregat.gesamt - aggregat.bestanden);
+    }
+    
+    /**
+     * Gibt die Notenverteilung einer Klausur zurück; Index i zählt die Versuche
+     * in der Notenstufe {@code getNotenstufen()[i]}
+     */
+    public synchronized int[] getNotenverteilung(Klausur klausur) {
+        KlausurAggregat aggregat = aggregateNachKlausur.get(klausur);
+        return aggregat == null ? new int[NOTENSTUFEN.length] : aggregat.histogramm.clone();
+    }
+    
+    /**
+     * Gibt eine Kopie des Noten-Sketches einer Klausur zurück (für Median/P10/P90)
+     */
+    public synchronized QuantilSketch getNotenSketch(Klausur klausur) {
+        KlausurAggregat aggregat = aggregateNachKlausur.get(klausur);
+        return aggregat == null ? new QuantilSketch() : aggregat.noten.kopie();
+    }
+    
+    /**
+     * Führt die Noten-Sketches mehrerer Klausuren zusammen (z.B. für ein Modul oder einen Fachbereich)
+     */
+    public synchronized QuantilSketch getNotenSketch(Collection<Klausur> klausuren) {
+        QuantilSketch gesamt = new QuantilSketch();
+        for (Klausur klausur : klausuren) {
+            KlausurAggregat aggregat = aggregateNachKlausur.get(klausur);
+            if (aggregat != null) {
+                gesamt.zusammenfuehren(aggregat.noten);
+            }
+        }
+        return gesamt;
+    }
+    
+    public synchronized QuantilSketch getNotenSketchFuerStudiengang(String studiengang) {
+        QuantilSketch sketch = notenNachStudiengang.get(studiengang);
+        return sketch == null ? new QuantilSketch() : sketch.kopie();
+    }
+    
+    public static double[] getNotenstufen() {
+        return NOTENSTUFEN.clone();
+    }
+    
+    /**
+     * Ordnet eine Note der nächstgelegenen Notenstufe zu; alles über 4.0 zählt als 5.0
+     */
+    static int notenstufe(double note) {
+        if (note > 4.0) {
+            return NOTENSTUFEN.length - 1;
+        }
+        int beste = 0;
+        for (int i = 1; i < NOTENSTUFEN.length - 1; i++) {
+            if (Math.abs(NOTENSTUFEN[i] - note) < Math.abs(NOTENSTUFEN[beste] - note)) {
+                beste = i;
+            }
+        }
+        return beste;
+    }
+    
+    /**
+     * Laufende Kennzahlen einer Klausur, bei jedem neuen Versuch aktualisiert
+     */
+    private static class KlausurAggregat {
+        int gesamt;
+        int bestanden;
+        double summeBestanden;
+        final int[] histogramm = new int[NOTENSTUFEN.length];
+        final QuantilSketch noten = new QuantilSketch();
         
-        return new KlausurStatistik(gesamtVersuche, durchschnittsnote, bestehendenquote, bestandeneVersuche, gesamtVersuche - bestandeneVersuche);
+        void hinzufuegen(Versuch versuch) {
+            gesamt++;
+            noten.hinzufuegen(versuch.getNote());
+            if (versuch.istBestanden()) {
+                bestanden++;
+                summeBestanden += versuch.getNote();
+            }
+            histogramm[notenstufe(versuch.getNote())]++;
+        }
     }
     
     /**
@@ -95,4 +322,83 @@ public class VersuchsVerwaltung {
                     gesamtVersuche, bestanden, bestehendenquote, durchschnittsnote);
         }
     }
+    
+    private void indizieren(Versuch versuch) {
+        Versuch.nachDatumEinfuegen(versucheNachStudent.computeIfAbsent(versuch.getStudent(), k -> new ArrayList<>()), versuch);
+        Versuch.nachDatumEinfuegen(versucheNachKlausur.computeIfAbsent(versuch.getKlausur(), k -> new ArrayList<>()), versuch);
+        anzahlNachStudentUndKlausur.computeIfAbsent(versuch.getStudent(), k -> new HashMap<>())
+                .merge(versuch.getKlausur(), 1, Integer::sum);
+        aggregateNachKlausur.computeIfAbsent(versuch.getKlausur(), k -> new KlausurAggregat()).hinzufuegen(versuch);
+        notenNachStudiengang.computeIfAbsent(versuch.getStudent().getStudiengang(), k -> new QuantilSketch())
+                .hinzufuegen(versuch.getNote());
+        anzahlVersuche++;
+    }
+    
+    private static List<Versuch> kopie(List<Versuch> liste) {
+        return liste == null ? new ArrayList<>() : new ArrayList<>(liste);
+    }
+    
+    // Datenbankoperationen
+    private void erstelleTabelleWennNichtVorhanden() {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS versuch (
+                id INTEGER PRIMARY KEY,
+                matrikelnummer TEXT NOT NULL,
+                klausur_id TEXT NOT NULL,
+                note REAL NOT NULL,
+                datum TEXT NOT NULL
+            )
+        """;
+        
+        try (Connection conn = Database.connect(); Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_versuch_klausur ON versuch (klausur_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_versuch_student ON versuch (matrikelnummer)");
+        } catch (SQLException e) {
+            System.err.println("Fehler beim Erstellen der Versuch-Tabelle: " + e.getMessage());
+        }
+    }
+    
+    private void persistieren(Versuch versuch) {
+        try {
+            schreiber.einreihen(versuch);
+        } catch (IllegalStateException e) {
+            // Schreiber bereits beendet (Anwendung fährt herunter) - direkt schreiben
+            try {
+                speichereInDatenbank(List.of(versuch));
+            } catch (SQLException sqlFehler) {
+                System.err.println("Fehler beim Speichern des Versuchs: " + sqlFehler.getMessage());
+                synchronized (nichtGespeichert) {
+                    nichtGespeichert.add(versuch);
+                }
+            }
+        }
+    }
+    
+    private void schreibeBatch(List<Versuch> batch) throws SQLException {
+        try {
+            speichereInDatenbank(batch);
+        } catch (SQLException e) {
+            synchronized (nichtGespeichert) {
+                nichtGespeichert.addAll(batch);
+            }
+            // Die Warteschlange protokolliert und zählt den Fehler
+            throw e;
+        }
+    }
+    
+    private void speichereInDatenbank(List<Versuch> batch) throws SQLException {
+        try (Connection conn = Database.connect(); PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            conn.setAutoCommit(false);
+            for (Versuch versuch : batch) {
+                pstmt.setString(1, versuch.getStudent().getMatrikelnummer());
+                pstmt.setString(2, versuch.getKlausur().getId());
+                pstmt.setDouble(3, versuch.getNote());
+                pstmt.setString(4, versuch.getDatum().toString());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            conn.commit();
+        }
+    }
 }
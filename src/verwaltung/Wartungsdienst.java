@@ -0,0 +1,194 @@
+package verwaltung;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import util.Database;
+import util.Zeitplaner;
+
+/**
+ * Wiederkehrende Wartungsaufgaben im Hintergrund.
+ *
+ * <ul>
+ *   <li>Fristerinnerungen: täglich um 6 Uhr sowie einmal beim Start (wiederholte
+ *       Läufe erzeugen dank Deduplizierung keine doppelten Erinnerungen). Der Lauf
+ *       liest Klausur- und Studentenindizes, die nicht threadsicher sind, und läuft
+ *       deshalb auf dem Thread, dem die Daten gehören (in der GUI der JavaFX-Thread).
+ *       Der Zeitplaner wartet auf das Ende, damit Laufzeit, Fehler und
+ *       Überlappungsschutz den eigentlichen Lauf erfassen.</li>
+ *   <li>Semesterbericht: wird außerhalb des JavaFX-Threads vorberechnet, sobald sich
+ *       Studenten oder Versuche geändert haben; neue Berichte werden an die
+ *       {@link #addBerichtListener Bericht-Listener} gemeldet</li>
+ *   <li>Datenbankwartung: {@code PRAGMA optimize} und inkrementelles Vacuum, nur
+ *       wenn keine Verbindung ausgeliehen ist und keine Schreibzugriffe warten</li>
+ * </ul>
+ */
+public class Wartungsdienst {
+    public static final String FRISTERINNERUNGEN = "Fristerinnerungen";
+    public static final String SEMESTERBERICHT = "Semesterbericht";
+    public static final String DATENBANKWARTUNG = "Datenbankwartung";
+
+    public static final LocalTime ERINNERUNG_UHRZEIT = LocalTime.of(6, 0);
+    public static final Duration BERICHT_INTERVALL = Duration.ofMinutes(2);
+    public static final Duration WARTUNG_INTERVALL = Duration.ofHours(1);
+    // Erneuter Versuch, wenn die Datenbank gerade belegt ist
+    public static final Duration WARTUNG_WIEDERHOLUNG = Duration.ofMinutes(1);
+    public static final int WARTUNG_MAX_SEITEN = 1000;
+
+    private final ErweiterteStudentenVerwaltung studentenVerwaltung;
+    private final KlausurVerwaltung klausurVerwaltung;
+    private final Executor datenThread;
+    private final Zeitplaner zeitplaner = new Zeitplaner("wartung", 1);
+    private final List<Consumer<SemesterBericht>> berichtListener = new CopyOnWriteArrayList<>();
+    private volatile Vorberechnet vorberechnet;
+
+    // Laufende Übergabe an den Datenthread; beim Beenden abgebrochen, damit der
+    // Zeitplaner nicht auf einen Thread wartet, der selbst gerade beendet
+    private final Object erinnerungSperre = new Object();
+    private CompletableFuture<Void> laufendeErinnerung;
+    private boolean beendet;
+
+    /**
+     * @param datenThread führt Aufgaben aus, die die Verwaltungsdaten lesen
+     *                    (in der GUI {@code Platform::runLater})
+     */
+    public Wartungsdienst(ErweiterteStudentenVerwaltung studentenVerwaltung, KlausurVerwaltung klausurVerwaltung,
+                          Executor datenThread) {
+        this.studentenVerwaltung = studentenVerwaltung;
+        this.klausurVerwaltung = klausurVerwaltung;
+        this.datenThread = datenThread;
+    }
+
+    /**
+     * Plant alle Aufgaben ein und holt Erinnerungen und Bericht sofort nach
+     */
+    public void starten() {
+        zeitplaner.taeglich(FRISTERINNERUNGEN, ERINNERUNG_UHRZEIT, Duration.ofMinutes(15).toMillis(),
+                this::fristerinnerungenErstellen);
+        zeitplaner.periodisch(SEMESTERBERICHT, BERICHT_INTERVALL, BERICHT_INTERVALL, 10_000,
+                this::berichtVorberechnen);
+        zeitplaner.periodisch(DATENBANKWARTUNG, Duration.ofMinutes(5), WARTUNG_INTERVALL, Duration.ofMinutes(5).toMillis(),
+                Database::istImLeerlauf, WARTUNG_WIEDERHOLUNG, this::datenbankWarten);
+
+        zeitplaner.jetztAusfuehren(FRISTERINNERUNGEN);
+        zeitplaner.jetztAusfuehren(SEMESTERBERICHT);
+    }
+
+    /**
+     * Beendet den Zeitplaner; eine laufende Aufgabe darf noch zu Ende laufen.
+     * Noch nicht vom Datenthread übernommene Erinnerungsläufe entfallen.
+     */
+    public void beenden() {
+        synchronized (erinnerungSperre) {
+            beendet = true;
+            if (laufendeErinnerung != null) {
+                laufendeErinnerung.cancel(false);
+            }
+        }
+        zeitplaner.beenden(5_000);
+    }
+
+    /**
+     * Gibt den zuletzt vorberechneten Semesterbericht zurück, ohne zu warten.
+     * Ist er veraltet (seitdem haben sich Studenten oder Versuche geändert), wird eine
+     * Neuberechnung im Hintergrund angestoßen; ihr Ergebnis geht an die Bericht-Listener.
+     *
+     * @return der letzte Bericht oder null, solange noch keiner berechnet wurde
+     */
+    public SemesterBericht getSemesterBericht() {
+        Vorberechnet aktuell = vorberechnet;
+        if (aktuell == null || aktuell.stand != studentenVerwaltung.getAenderungsstand()) {
+            zeitplaner.jetztAusfuehren(SEMESTERBERICHT);
+        }
+        return aktuell == null ? null : aktuell.bericht;
+    }
+
+    /**
+     * Meldet jeden neu berechneten Semesterbericht (auf dem Hintergrund-Thread)
+     */
+    public void addBerichtListener(Consumer<SemesterBericht> listener) {
+        berichtListener.add(listener);
+    }
+
+    public void removeBerichtListener(Consumer<SemesterBericht> listener) {
+        berichtListener.remove(listener);
+    }
+
+    public List<Zeitplaner.AufgabenStatistik> getStatistik() {
+        return zeitplaner.getStatistik();
+    }
+
+    private void fristerinnerungenErstellen() throws Exception {
+        CompletableFuture<Void> lauf;
+        synchronized (erinnerungSperre) {
+            if (beendet) {
+                return;
+            }
+            lauf = CompletableFuture.runAsync(() -> {
+                int erstellt = studentenVerwaltung.erstelleFristerinnerungen(klausurVerwaltung, LocalDate.now());
+                if (erstellt > 0) {
+                    System.out.println("⏰ " + erstellt + " Fristerinnerungen erstellt");
+                }
+            }, datenThread);
+            laufendeErinnerung = lauf;
+        }
+        try {
+            lauf.get();
+        } catch (CancellationException e) {
+            // Beim Beenden abgebrochen
+        } catch (InterruptedException e) {
+            lauf.cancel(false);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Fehler des Datenthreads an den Zeitplaner weitergeben, damit er gezählt wird
+            Throwable ursache = e.getCause();
+            if (ursache instanceof Error) {
+                throw (Error) ursache;
+            }
+            throw (Exception) ursache;
+        }
+    }
+
+    private void berichtVorberechnen() {
+        // Stand vor der Berechnung lesen: spätere Änderungen machen den Bericht wieder veraltet
+        long stand = studentenVerwaltung.getAenderungsstand();
+        Vorberechnet aktuell = vorberechnet;
+        if (aktuell != null && aktuell.stand == stand) {
+            return;
+        }
+        SemesterBericht neu = SemesterBericht.erstellen(studentenVerwaltung);
+        vorberechnet = new Vorberechnet(neu, stand);
+        for (Consumer<SemesterBericht> listener : berichtListener) {
+            listener.accept(neu);
+        }
+    }
+
+    private void datenbankWarten() throws SQLException {
+        int freigegeben = Database.wartungAusfuehren(WARTUNG_MAX_SEITEN);
+        if (freigegeben > 0) {
+            System.out.println("🧹 Datenbankwartung: " + freigegeben + " freie Seiten zurückgegeben");
+        }
+    }
+
+    /**
+     * Bericht zusammen mit dem Änderungsstand, aus dem er berechnet wurde
+     */
+    private static class Vorberechnet {
+        final SemesterBericht bericht;
+        final long stand;
+
+        Vorberechnet(SemesterBericht bericht, long stand) {
+            this.bericht = bericht;
+            this.stand = stand;
+        }
+    }
+}
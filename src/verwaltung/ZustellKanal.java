@@ -0,0 +1,20 @@
+package verwaltung;
+
+import java.util.List;
+
+import model.Benachrichtigung;
+
+/**
+ * Zustellweg für Benachrichtigungen (Konsole, Datei, E-Mail, ...).
+ * Wird von den Versand-Threads mit ganzen Blöcken aufgerufen; bei mehreren
+ * Versand-Threads müssen Implementierungen threadsicher sein.
+ */
+public interface ZustellKanal {
+
+    String getName();
+
+    /**
+     * Stellt einen Block von Benachrichtigungen zu
+     */
+    void zustellen(List<Benachrichtigung> batch) throws Exception;
+}